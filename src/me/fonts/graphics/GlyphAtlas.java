@@ -0,0 +1,399 @@
+package me.fonts.graphics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Every glyph of a font packed into a few contiguous buffers.  Rather than an object and array for each glyph, the glyphs share one buffer of packed bits and one buffer of spans, with tables of where each glyph starts and how large it is.
+ * <br>The buffers may live on the heap, off the heap in direct memory, or in a memory-mapped file written with <code>write</code>.  Off the heap, the glyphs are not scanned by the garbage collector, and a mapped file is shared through the page cache by every JVM that maps it.
+ * @author Joshua Diemer
+ *
+ */
+public final class GlyphAtlas {
+	/**
+	 * The first int of a written GlyphAtlas.
+	 */
+	private static final int MAGIC = 0x474C4154;
+	/**
+	 * The version of the format written by <code>write</code>.
+	 */
+	private static final int VERSION = 1;
+	/**
+	 * The amount of ints before the tables of a written GlyphAtlas.
+	 */
+	private static final int HEADER_INTS = 5;
+	
+	/**
+	 * The width of every glyph.
+	 */
+	private final int[] widths;
+	/**
+	 * The height of every glyph.
+	 */
+	private final int[] heights;
+	/**
+	 * The word in bits that each glyph starts at.
+	 */
+	private final int[] wordOffsets;
+	/**
+	 * The index in spans that each glyph starts at, with one more entry marking the end of the last glyph.
+	 */
+	private final int[] spanOffsets;
+	/**
+	 * If each glyph is only ink and the transparent color, and can be drawn from its spans.
+	 */
+	private final boolean[] solid;
+	/**
+	 * The bits of every glyph, each starting on a new word, laid out like a GlyphMask.
+	 */
+	private final LongBuffer bits;
+	/**
+	 * The runs of ink in every glyph as (row, column, length) triples.
+	 */
+	private final IntBuffer spans;
+	
+	private GlyphAtlas(int[] widths, int[] heights, int[] wordOffsets, int[] spanOffsets, boolean[] solid, LongBuffer bits, IntBuffer spans) {
+		this.widths = widths;
+		this.heights = heights;
+		this.wordOffsets = wordOffsets;
+		this.spanOffsets = spanOffsets;
+		this.solid = solid;
+		this.bits = bits;
+		this.spans = spans;
+	}
+	
+	/**
+	 * Creates a GlyphAtlas on the heap from every pixel in the SpriteBases that matches the ink color.
+	 * <br>A sprite that contains colors other than the ink and transparent colors is not solid, and has no spans.
+	 * @param sprites The SpriteBases to pack, one for each glyph.
+	 * @param ink The color in the SpriteBases that is treated as ink.
+	 * @param transparent The color in the SpriteBases that is left unrendered (usually 0xFFFF00FF).
+	 * @return The GlyphAtlas of the SpriteBases.
+	 */
+	public static final GlyphAtlas fromSprites(SpriteBase[] sprites, int ink, int transparent) {
+		int[] widths = new int[sprites.length];
+		int[] heights = new int[sprites.length];
+		int[] wordOffsets = new int[sprites.length];
+		int[] spanOffsets = new int[sprites.length + 1];
+		boolean[] solid = new boolean[sprites.length];
+		int words = 0;
+		int spanCount = 0;
+		
+		for (int i = 0; i < sprites.length; i++) {
+			widths[i] = sprites[i].getWidth();
+			heights[i] = sprites[i].getHeight();
+			wordOffsets[i] = words;
+			words += (widths[i] * heights[i] + 63) >>> 6;
+			spanCount += widths[i] * heights[i] * 3;
+		}
+		
+		long[] bits = new long[words];
+		int[] spans = new int[spanCount];
+		int current = 0;
+		
+		for (int i = 0; i < sprites.length; i++) {
+			SpriteBase sprite = sprites[i];
+			int start = current;
+			
+			solid[i] = true;
+			spanOffsets[i] = current;
+			
+			for (int y = 0; y < heights[i]; y++) {
+				for (int x = 0; x < widths[i]; x++) {
+					int pixel = sprite.getPixel(x, y);
+					
+					if (pixel == ink) {
+						int bit = x + y * widths[i];
+						
+						bits[wordOffsets[i] + (bit >>> 6)] |= 1L << bit;
+					} else if (pixel != transparent)
+						solid[i] = false;
+				}
+			}
+			
+			for (int y = 0; y < heights[i] && solid[i]; y++) {
+				for (int x = 0; x < widths[i]; x++) {
+					if (sprite.getPixel(x, y) != ink)
+						continue;
+					
+					int run = x;
+					
+					while (x + 1 < widths[i] && sprite.getPixel(x + 1, y) == ink)
+						x++;
+					
+					spans[current++] = y;
+					spans[current++] = run;
+					spans[current++] = x - run + 1;
+				}
+			}
+			
+			if (!solid[i])
+				current = start;
+		}
+		
+		spanOffsets[sprites.length] = current;
+		
+		return new GlyphAtlas(widths, heights, wordOffsets, spanOffsets, solid, LongBuffer.wrap(bits), IntBuffer.wrap(Arrays.copyOf(spans, current)));
+	}
+	
+	/**
+	 * Creates a GlyphAtlas on the heap from glyphs that are already packed as bits.  Every glyph is solid.
+	 * @param widths The width of every glyph.
+	 * @param heights The height of every glyph.
+	 * @param bits The bits of every glyph, each starting on a new word, laid out like a GlyphMask.
+	 * @return The GlyphAtlas of the glyphs.
+	 */
+	public static final GlyphAtlas fromBits(int[] widths, int[] heights, long[] bits) {
+		int[] wordOffsets = new int[widths.length];
+		int[] spanOffsets = new int[widths.length + 1];
+		boolean[] solid = new boolean[widths.length];
+		int words = 0;
+		int spanCount = 0;
+		
+		for (int i = 0; i < widths.length; i++) {
+			wordOffsets[i] = words;
+			words += (widths[i] * heights[i] + 63) >>> 6;
+			spanCount += widths[i] * heights[i] * 3;
+		}
+		
+		if (words > bits.length)
+			throw new IllegalArgumentException("The bits are too small for the glyphs.");
+		
+		int[] spans = new int[spanCount];
+		int current = 0;
+		
+		for (int i = 0; i < widths.length; i++) {
+			solid[i] = true;
+			spanOffsets[i] = current;
+			
+			for (int y = 0; y < heights[i]; y++) {
+				for (int x = 0; x < widths[i]; x++) {
+					if (!isSet(bits, wordOffsets[i], x + y * widths[i]))
+						continue;
+					
+					int run = x;
+					
+					while (x + 1 < widths[i] && isSet(bits, wordOffsets[i], x + 1 + y * widths[i]))
+						x++;
+					
+					spans[current++] = y;
+					spans[current++] = run;
+					spans[current++] = x - run + 1;
+				}
+			}
+		}
+		
+		spanOffsets[widths.length] = current;
+		
+		return new GlyphAtlas(widths, heights, wordOffsets, spanOffsets, solid, LongBuffer.wrap(bits, 0, words).slice(), IntBuffer.wrap(Arrays.copyOf(spans, current)));
+	}
+	
+	private static boolean isSet(long[] bits, int word, int bit) {
+		return (bits[word + (bit >>> 6)] & 1L << bit) != 0;
+	}
+	
+	/**
+	 * Reads a GlyphAtlas that was written with <code>write</code>, starting at the buffer's position.  The buffer's position is moved past the GlyphAtlas, so several can be read one after another.
+	 * <br>The tables are copied onto the heap, but the bits and spans are read straight from the buffer; a direct or memory-mapped buffer keeps them off the heap.
+	 * @param buffer The buffer to read from.
+	 * @return The GlyphAtlas in the buffer.
+	 * @throws IllegalArgumentException If the buffer does not hold a GlyphAtlas at its position.
+	 */
+	public static final GlyphAtlas read(ByteBuffer buffer) {
+		ByteBuffer data = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		
+		if (data.remaining() < HEADER_INTS * Integer.BYTES || data.getInt() != MAGIC)
+			throw new IllegalArgumentException("The buffer does not hold a GlyphAtlas.");
+		else if (data.getInt() != VERSION)
+			throw new IllegalArgumentException("The GlyphAtlas was written by an unsupported version.");
+		
+		int count = data.getInt();
+		int words = data.getInt();
+		int spanCount = data.getInt();
+		
+		int[] widths = new int[count];
+		int[] heights = new int[count];
+		int[] wordOffsets = new int[count];
+		int[] spanOffsets = new int[count + 1];
+		boolean[] solid = new boolean[count];
+		
+		IntBuffer tables = data.asIntBuffer();
+		
+		tables.get(widths).get(heights).get(wordOffsets).get(spanOffsets);
+		
+		for (int i = 0; i < count; i++)
+			solid[i] = tables.get() != 0;
+		
+		int bitsStart = align(data.position() + tables.position() * Integer.BYTES);
+		int spansStart = bitsStart + words * Long.BYTES;
+		int end = align(spansStart + spanCount * Integer.BYTES);
+		
+		LongBuffer bits = data.position(bitsStart).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().limit(words);
+		IntBuffer spans = data.position(spansStart).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().limit(spanCount);
+		
+		buffer.position(buffer.position() + end);
+		
+		return new GlyphAtlas(widths, heights, wordOffsets, spanOffsets, solid, bits.slice(), spans.slice());
+	}
+	
+	/**
+	 * Memory-maps a file holding a single GlyphAtlas that was written with <code>write</code>.
+	 * @param path The file to map.
+	 * @return The GlyphAtlas in the file, read straight from the mapping.
+	 * @throws IOException If the file could not be mapped.
+	 */
+	public static final GlyphAtlas map(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Writes the GlyphAtlas in a form that can be read back with <code>read</code> or <code>map</code>.  The written size is always a multiple of 8 bytes.
+	 * @param channel The channel to write to.
+	 * @throws IOException If the channel could not be written to.
+	 * @throws IllegalStateException If any glyph is not solid, since only ink is kept.
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		for (boolean glyph : solid)
+			if (!glyph)
+				throw new IllegalStateException("A GlyphAtlas with glyphs that are not solid cannot be written.");
+		
+		int count = size();
+		int bitsStart = align((HEADER_INTS + count * 5 + 1) * Integer.BYTES);
+		int spansStart = bitsStart + bits.limit() * Long.BYTES;
+		ByteBuffer data = ByteBuffer.allocate(align(spansStart + spans.limit() * Integer.BYTES)).order(ByteOrder.LITTLE_ENDIAN);
+		
+		IntBuffer tables = data.asIntBuffer();
+		
+		tables.put(MAGIC).put(VERSION).put(count).put(bits.limit()).put(spans.limit());
+		tables.put(widths).put(heights).put(wordOffsets).put(spanOffsets);
+		
+		for (int i = 0; i < count; i++)
+			tables.put(1);
+		
+		data.position(bitsStart).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().put(bits.duplicate().clear());
+		data.position(spansStart).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(spans.duplicate().clear());
+		data.clear();
+		
+		while (data.hasRemaining())
+			channel.write(data);
+	}
+	
+	/**
+	 * Creates a copy of the GlyphAtlas with its bits and spans in direct memory, off the heap.
+	 * @return The off-heap GlyphAtlas.
+	 */
+	public GlyphAtlas toDirect() {
+		ByteBuffer bitsData = ByteBuffer.allocateDirect(Math.max(bits.limit() * Long.BYTES, 1)).order(ByteOrder.nativeOrder());
+		ByteBuffer spansData = ByteBuffer.allocateDirect(Math.max(spans.limit() * Integer.BYTES, 1)).order(ByteOrder.nativeOrder());
+		
+		LongBuffer bits = bitsData.asLongBuffer().put(this.bits.duplicate().clear()).flip();
+		IntBuffer spans = spansData.asIntBuffer().put(this.spans.duplicate().clear()).flip();
+		
+		return new GlyphAtlas(widths, heights, wordOffsets, spanOffsets, solid, bits, spans);
+	}
+	
+	private static int align(int bytes) {
+		return bytes + 7 & ~7;
+	}
+	
+	/**
+	 * Creates a new GlyphMask of a single glyph.
+	 * @param index The index of the glyph.
+	 * @return The GlyphMask of the glyph.
+	 */
+	public GlyphMask getMask(int index) {
+		long[] output = new long[(widths[index] * heights[index] + 63) >>> 6];
+		
+		bits.get(wordOffsets[index], output);
+		
+		return new GlyphMask(output, widths[index], heights[index]);
+	}
+	
+	/**
+	 * Checks if a glyph is only ink and the transparent color, and can be drawn from its spans.
+	 * @param index The index of the glyph.
+	 * @return If the glyph is solid.
+	 */
+	public boolean isSolid(int index) {
+		return solid[index];
+	}
+	
+	/**
+	 * Checks if the bits and spans are stored off the heap, either in direct memory or a memory-mapped file.
+	 * @return If the GlyphAtlas is off the heap.
+	 */
+	public boolean isDirect() {
+		return spans.isDirect();
+	}
+	
+	/**
+	 * Gets the amount of glyphs in the GlyphAtlas.
+	 * @return The amount of glyphs.
+	 */
+	public int size() {
+		return widths.length;
+	}
+	
+	/**
+	 * Gets the width of a glyph.
+	 * @param index The index of the glyph.
+	 * @return The width of the glyph.
+	 */
+	public int getWidth(int index) {
+		return widths[index];
+	}
+	
+	/**
+	 * Gets the height of a glyph.
+	 * @param index The index of the glyph.
+	 * @return The height of the glyph.
+	 */
+	public int getHeight(int index) {
+		return heights[index];
+	}
+	
+	/**
+	 * Gets the spans of every glyph.  This is the GlyphAtlas's own buffer, and must not be modified.
+	 * <br>The spans of a glyph run from <code>getSpanStart(index)</code> up to <code>getSpanEnd(index)</code>.
+	 * @return The runs of ink in every glyph as (row, column, length) triples.
+	 */
+	public IntBuffer getSpans() {
+		return spans;
+	}
+	
+	/**
+	 * Gets the index in the spans that a glyph starts at.
+	 * @param index The index of the glyph.
+	 * @return The index of the glyph's first span.
+	 */
+	public int getSpanStart(int index) {
+		return spanOffsets[index];
+	}
+	
+	/**
+	 * Gets the index in the spans just past the end of a glyph.
+	 * @param index The index of the glyph.
+	 * @return The index just past the glyph's last span.
+	 */
+	public int getSpanEnd(int index) {
+		return spanOffsets[index + 1];
+	}
+	
+	/**
+	 * Gets the amount of bytes the GlyphAtlas's tables and buffers hold.
+	 * @return The amount of bytes the GlyphAtlas's tables and buffers hold.
+	 */
+	public long getBytes() {
+		return (long) bits.limit() * Long.BYTES + (long) (spans.limit() + spanOffsets.length + widths.length * 3) * Integer.BYTES + solid.length;
+	}
+}
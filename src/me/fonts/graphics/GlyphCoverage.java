@@ -0,0 +1,124 @@
+package me.fonts.graphics;
+
+/**
+ * A read-only, anti-aliased glyph.  Each pixel stores how much of it is covered by ink, from 0 (none) to 255 (all), rather than a color.
+ * @author Joshua Diemer
+ *
+ */
+public final class GlyphCoverage {
+	/**
+	 * The coverage given to a background pixel in the corner of two ink edges, with ink beside it on one side and above or below it on the other.
+	 */
+	private static final int CORNER = 128;
+	/**
+	 * The coverage given to a background pixel beside a single step of a diagonal ink edge.
+	 */
+	private static final int STEP = 64;
+	
+	/**
+	 * The width of the GlyphCoverage.
+	 */
+	private final int width;
+	/**
+	 * The height of the GlyphCoverage.
+	 */
+	private final int height;
+	/**
+	 * The coverage of every pixel, unsigned, at <code>x + y * width</code>.
+	 */
+	private final byte[] coverage;
+	
+	/**
+	 * Creates a GlyphCoverage from coverage values that have already been worked out.  The array is used directly rather than copied.
+	 * @param coverage The coverage of every pixel, unsigned, at <code>x + y * width</code>.
+	 * @param width The width of the GlyphCoverage.
+	 * @param height The height of the GlyphCoverage.
+	 */
+	public GlyphCoverage(byte[] coverage, int width, int height) {
+		if (coverage.length < width * height)
+			throw new IllegalArgumentException("The coverage array is too small for " + width + "x" + height + ".");
+		
+		this.width = width;
+		this.height = height;
+		this.coverage = coverage;
+	}
+	
+	/**
+	 * Creates a GlyphCoverage by smoothing the stair-steps along the diagonal edges of a GlyphMask.  Ink is fully covered, straight edges are left sharp, and background pixels tucked into a step are partly covered.
+	 * <br>A background pixel between ink on opposite sides, such as the gap inside an <code>m</code> or <code>e</code>, is left empty, so small counters are not filled in.
+	 * <br>The GlyphCoverage is one pixel larger than the GlyphMask on every side, so it must be rendered one pixel up and to the left of where the GlyphMask would be.
+	 * @param mask The GlyphMask to smooth.
+	 * @return The GlyphCoverage of the GlyphMask.
+	 */
+	public static final GlyphCoverage fromMask(GlyphMask mask) {
+		int width = mask.getWidth() + 2;
+		int height = mask.getHeight() + 2;
+		byte[] coverage = new byte[width * height];
+		
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int mx = x - 1;
+				int my = y - 1;
+				
+				if (isSet(mask, mx, my)) {
+					coverage[x + y * width] = (byte) 255;
+					continue;
+				}
+				
+				int horizontal = count(mask, mx - 1, my) + count(mask, mx + 1, my);
+				int vertical = count(mask, mx, my - 1) + count(mask, mx, my + 1);
+				int sides = horizontal + vertical;
+				int corners = count(mask, mx - 1, my - 1) + count(mask, mx + 1, my - 1) + count(mask, mx - 1, my + 1) + count(mask, mx + 1, my + 1);
+				
+				if (horizontal == 1 && vertical == 1)
+					coverage[x + y * width] = (byte) CORNER;
+				else if (sides == 1 && corners == 1)
+					coverage[x + y * width] = (byte) STEP;
+			}
+		}
+		
+		return new GlyphCoverage(coverage, width, height);
+	}
+	
+	private static boolean isSet(GlyphMask mask, int x, int y) {
+		return x >= 0 && y >= 0 && x < mask.getWidth() && y < mask.getHeight() && mask.isSet(x, y);
+	}
+	
+	private static int count(GlyphMask mask, int x, int y) {
+		return isSet(mask, x, y) ? 1 : 0;
+	}
+	
+	/**
+	 * Gets the coverage of a pixel in the GlyphCoverage.
+	 * @param x The x position in the GlyphCoverage.
+	 * @param y The y position in the GlyphCoverage.
+	 * @return The coverage of the pixel, from 0 to 255.
+	 */
+	public int getCoverage(int x, int y) {
+		return coverage[x + y * width] & 0xFF;
+	}
+	
+	/**
+	 * Gets the width of the GlyphCoverage.
+	 * @return The width of the GlyphCoverage.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Gets the height of the GlyphCoverage.
+	 * @return The height of the GlyphCoverage.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Gets the coverage of every pixel.  This is the GlyphCoverage's own array, and must not be modified.
+	 * @return The coverage of every pixel, unsigned, at <code>x + y * width</code>.
+	 */
+	public byte[] getCoverage() {
+		return coverage;
+	}
+}
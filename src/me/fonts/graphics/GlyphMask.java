@@ -0,0 +1,101 @@
+package me.fonts.graphics;
+
+/**
+ * A compact, read-only copy of a single-color sprite.  Rather than an ARGB int for every pixel, the rows are stored one after another as packed bits, where a set bit is ink and a clear bit is left unrendered.
+ * <br>A GlyphMask is how a glyph is stored, not how it is drawn.  Sprites and GlyphCoverage are built from it when they are needed, and a RasterTarget fills the glyph's precomputed spans.
+ * @author Joshua Diemer
+ *
+ */
+public final class GlyphMask {
+	/**
+	 * The width of the GlyphMask.
+	 */
+	private final int width;
+	/**
+	 * The height of the GlyphMask.
+	 */
+	private final int height;
+	/**
+	 * The bits of every row, where bit <code>i % 64</code> of word <code>i / 64</code> is the pixel at <code>i = x + y * width</code>.
+	 */
+	private final long[] bits;
+	
+	GlyphMask(long[] bits, int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.bits = bits;
+	}
+	
+	/**
+	 * Creates a GlyphMask from every pixel in the SpriteBase that matches the ink color.
+	 * @param sprite The SpriteBase to create the GlyphMask from.
+	 * @param ink The color in the SpriteBase that is treated as ink.
+	 * @return The GlyphMask of the SpriteBase.
+	 */
+	public static final GlyphMask fromSprite(SpriteBase sprite, int ink) {
+		long[] bits = new long[(sprite.getWidth() * sprite.getHeight() + 63) >>> 6];
+		
+		for (int y = 0; y < sprite.getHeight(); y++) {
+			for (int x = 0; x < sprite.getWidth(); x++) {
+				int i = x + y * sprite.getWidth();
+				
+				if (sprite.getPixel(x, y) == ink)
+					bits[i >>> 6] |= 1L << i;
+			}
+		}
+		
+		return new GlyphMask(bits, sprite.getWidth(), sprite.getHeight());
+	}
+	
+	/**
+	 * Creates a new SpriteBase from the GlyphMask.
+	 * @param ink The color to give the pixels that are set.
+	 * @param background The color to give the pixels that are not set.
+	 * @return The SpriteBase of the GlyphMask.
+	 */
+	public SpriteBase toSprite(int ink, int background) {
+		int[] pixels = new int[width * height];
+		
+		for (int y = 0; y < height; y++)
+			for (int x = 0; x < width; x++)
+				pixels[x + y * width] = isSet(x, y) ? ink : background;
+		
+		return new SpriteBase(pixels, width, height) {};
+	}
+	
+	/**
+	 * Checks if the pixel at the specified location in the GlyphMask is ink.
+	 * @param x The x position in the GlyphMask to check.
+	 * @param y The y position in the GlyphMask to check.
+	 * @return If the pixel is ink.
+	 */
+	public boolean isSet(int x, int y) {
+		int i = x + y * width;
+		
+		return (bits[i >>> 6] & 1L << i) != 0;
+	}
+	
+	/**
+	 * Gets the width of the GlyphMask.
+	 * @return The width of the GlyphMask.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Gets the height of the GlyphMask.
+	 * @return The height of the GlyphMask.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Gets the packed bits of the GlyphMask.  This is the GlyphMask's own array, and must not be modified.
+	 * @return The packed bits of the GlyphMask.
+	 */
+	public long[] getBits() {
+		return bits;
+	}
+}
@@ -19,4 +19,26 @@ public interface IScreen {
 	 * @param opaqueColors Which colors, if any, to avoid rendering (usually 0xFFFF00FF).
 	 */
 	void render(SpriteBase sprite, int x, int y, int...opaqueColors);
+	/**
+	 * Renders a shared SpriteBase to the pixels array, writing the tint color wherever the sprite contains the ink color.  The sprite is read-only and must not be modified.
+	 * <br>The default implementation copies and recolors the sprite before handing it to {@link #render(SpriteBase, int, int, int...)}.  Override this to write the tinted pixels directly and avoid allocating for every glyph.
+	 * @param sprite The sprite to render to the pixels array.
+	 * @param x The x position on the pixels array to render to.
+	 * @param y The y position on the pixels array to render to.
+	 * @param ink The color in the sprite to replace with the tint.
+	 * @param tint The color to render in place of the ink.
+	 * @param opaqueColor The color to avoid rendering (usually 0xFFFF00FF).
+	 */
+	default void renderTinted(SpriteBase sprite, int x, int y, int ink, int tint, int opaqueColor) {
+		if (ink == tint) {
+			render(sprite, x, y, opaqueColor);
+			return;
+		}
+		
+		SpriteBase tinted = new SpriteBase(sprite) {};
+		
+		tinted.replaceColor(ink, tint);
+		
+		render(tinted, x, y, opaqueColor);
+	}
 }
@@ -0,0 +1,402 @@
+package me.fonts.graphics;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * A ready-made IScreen that renders directly into an int[] of ARGB pixels.  When a Font is given a RasterTarget, it blits its sprites straight into the pixels array rather than going through the IScreen methods.
+ * @author Joshua Diemer
+ *
+ */
+public final class RasterTarget implements IScreen {
+	/**
+	 * <code>65536 / alpha</code> for every alpha from 1 to 255, so compositing can multiply and shift rather than divide.
+	 */
+	private static final int[] RECIPROCALS = createReciprocals();
+	
+	/**
+	 * The pixels that are rendered to.
+	 */
+	private final int[] pixels;
+	/**
+	 * The width of the RasterTarget.
+	 */
+	private final int width;
+	/**
+	 * The height of the RasterTarget.
+	 */
+	private final int height;
+	/**
+	 * The distance in the pixels array from the start of one row to the start of the next.
+	 */
+	private final int stride;
+	/**
+	 * The left edge of the area that may be rendered to.
+	 */
+	private int clipX;
+	/**
+	 * The top edge of the area that may be rendered to.
+	 */
+	private int clipY;
+	/**
+	 * The right edge (exclusive) of the area that may be rendered to.
+	 */
+	private int clipRight;
+	/**
+	 * The bottom edge (exclusive) of the area that may be rendered to.
+	 */
+	private int clipBottom;
+	
+	/**
+	 * Creates a RasterTarget whose rows are packed one after another in the pixels array.  The array is used directly rather than copied.
+	 * @param pixels The pixels to render to.
+	 * @param width The width of the RasterTarget.
+	 * @param height The height of the RasterTarget.
+	 */
+	public RasterTarget(int[] pixels, int width, int height) {
+		this(pixels, width, height, width);
+	}
+	
+	/**
+	 * Creates a RasterTarget whose rows are <code>stride</code> pixels apart in the pixels array.  The array is used directly rather than copied.
+	 * @param pixels The pixels to render to.
+	 * @param width The width of the RasterTarget.
+	 * @param height The height of the RasterTarget.
+	 * @param stride The distance in the pixels array from the start of one row to the start of the next.
+	 */
+	public RasterTarget(int[] pixels, int width, int height, int stride) {
+		if (width < 0 || height < 0 || stride < width)
+			throw new IllegalArgumentException("Invalid size " + width + "x" + height + " with stride " + stride + ".");
+		
+		if (height > 0 && pixels.length < (height - 1) * stride + width)
+			throw new IllegalArgumentException("The pixels array is too small for " + width + "x" + height + " with stride " + stride + ".");
+		
+		this.pixels = pixels;
+		this.width = width;
+		this.height = height;
+		this.stride = stride;
+		
+		resetClip();
+	}
+	
+	/**
+	 * Restricts all rendering, apart from <code>clear</code>, to a rectangle of the RasterTarget.  The rectangle is cut down to fit inside the RasterTarget.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 */
+	public void setClip(int x, int y, int width, int height) {
+		clipX = Math.max(x, 0);
+		clipY = Math.max(y, 0);
+		clipRight = Math.max(clipX, Math.min(x + width, this.width));
+		clipBottom = Math.max(clipY, Math.min(y + height, this.height));
+	}
+	
+	/**
+	 * Allows rendering to the entire RasterTarget again.
+	 */
+	public void resetClip() {
+		clipX = 0;
+		clipY = 0;
+		clipRight = width;
+		clipBottom = height;
+	}
+	
+	/**
+	 * Fills a rectangle of the RasterTarget with a single color, staying inside of the clip.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @param color The color to fill the rectangle with.
+	 */
+	public void fill(int x, int y, int width, int height, int color) {
+		int startX = Math.max(x, clipX);
+		int endX = Math.min(x + width, clipRight);
+		int endY = Math.min(y + height, clipBottom);
+		
+		if (startX >= endX)
+			return;
+		
+		for (int ya = Math.max(y, clipY); ya < endY; ya++)
+			Arrays.fill(pixels, startX + ya * stride, endX + ya * stride, color);
+	}
+	
+	public void clear(int color) {
+		for (int y = 0; y < height; y++)
+			Arrays.fill(pixels, y * stride, y * stride + width, color);
+	}
+	
+	public void render(SpriteBase sprite, int x, int y, int...opaqueColors) {
+		int spriteWidth = sprite.getWidth();
+		int[] spritePixels = sprite.getPixels();
+		int startX = Math.max(clipX - x, 0);
+		int startY = Math.max(clipY - y, 0);
+		int endX = Math.min(spriteWidth, clipRight - x);
+		int endY = Math.min(sprite.getHeight(), clipBottom - y);
+		
+		for (int yy = startY; yy < endY; yy++) {
+			int source = yy * spriteWidth;
+			int target = x + (yy + y) * stride;
+			
+			xSprite: for (int xx = startX; xx < endX; xx++) {
+				int color = spritePixels[source + xx];
+				
+				for (int col : opaqueColors)
+					if (col == color)
+						continue xSprite;
+				
+				pixels[target + xx] = color;
+			}
+		}
+	}
+	
+	public void renderTinted(SpriteBase sprite, int x, int y, int ink, int tint, int opaqueColor) {
+		int spriteWidth = sprite.getWidth();
+		int[] spritePixels = sprite.getPixels();
+		int startX = Math.max(clipX - x, 0);
+		int startY = Math.max(clipY - y, 0);
+		int endX = Math.min(spriteWidth, clipRight - x);
+		int endY = Math.min(sprite.getHeight(), clipBottom - y);
+		
+		for (int yy = startY; yy < endY; yy++) {
+			int source = yy * spriteWidth;
+			int target = x + (yy + y) * stride;
+			
+			for (int xx = startX; xx < endX; xx++) {
+				int color = spritePixels[source + xx];
+				
+				if (color != opaqueColor)
+					pixels[target + xx] = color == ink ? tint : color;
+			}
+		}
+	}
+	
+	/**
+	 * Fills horizontal runs of pixels with a single color, skipping any part of a run that falls outside of the clip.
+	 * <br>Each span is three ints in the array: the row, the starting column, and the length of the run, all relative to x and y.  The spans must be ordered by row.
+	 * @param spans The spans to fill.
+	 * @param x The x position on the pixels array that the spans are relative to.
+	 * @param y The y position on the pixels array that the spans are relative to.
+	 * @param color The color to fill the spans with.
+	 */
+	public void fillSpans(int[] spans, int x, int y, int color) {
+		fillSpans(spans, 0, spans.length, x, y, color);
+	}
+	
+	/**
+	 * Fills part of an array of spans, such as a single glyph of a GlyphAtlas, skipping any part of a run that falls outside of the clip.
+	 * @param spans The spans to fill from.
+	 * @param from The index of the first span to fill.
+	 * @param to The index just past the last span to fill.
+	 * @param x The x position on the pixels array that the spans are relative to.
+	 * @param y The y position on the pixels array that the spans are relative to.
+	 * @param color The color to fill the spans with.
+	 */
+	public void fillSpans(int[] spans, int from, int to, int x, int y, int color) {
+		for (int i = from; i < to; i += 3) {
+			int ya = spans[i] + y;
+			
+			if (ya < clipY)
+				continue;
+			else if (ya >= clipBottom)
+				break;
+			
+			int start = Math.max(spans[i + 1] + x, clipX);
+			int end = Math.min(spans[i + 1] + spans[i + 2] + x, clipRight);
+			
+			for (int xa = start; xa < end; xa++)
+				pixels[xa + ya * stride] = color;
+		}
+	}
+	
+	/**
+	 * Fills part of a buffer of spans, such as a single glyph of a GlyphAtlas, skipping any part of a run that falls outside of the clip.  The spans are read in place, so a direct or memory-mapped buffer is never copied onto the heap, and a buffer on the heap is read straight from its array.
+	 * @param spans The spans to fill from.
+	 * @param from The index of the first span to fill.
+	 * @param to The index just past the last span to fill.
+	 * @param x The x position on the pixels array that the spans are relative to.
+	 * @param y The y position on the pixels array that the spans are relative to.
+	 * @param color The color to fill the spans with.
+	 */
+	public void fillSpans(IntBuffer spans, int from, int to, int x, int y, int color) {
+		if (spans.hasArray()) {
+			fillSpans(spans.array(), spans.arrayOffset() + from, spans.arrayOffset() + to, x, y, color);
+			return;
+		}
+		
+		for (int i = from; i < to; i += 3) {
+			int ya = spans.get(i) + y;
+			
+			if (ya < clipY)
+				continue;
+			else if (ya >= clipBottom)
+				break;
+			
+			int column = spans.get(i + 1) + x;
+			int start = Math.max(column, clipX);
+			int end = Math.min(column + spans.get(i + 2), clipRight);
+			
+			for (int xa = start; xa < end; xa++)
+				pixels[xa + ya * stride] = color;
+		}
+	}
+	
+	/**
+	 * Renders an anti-aliased GlyphCoverage, blending the color over the pixels already there by how much of each pixel is covered.
+	 * <br>Blending uses only integer multiplies, shifts, and table lookups, never division, and allocates nothing.  Opaque pixels are blended two color channels at a time.  Pixels that are not fully opaque, such as a transparent background, are composited with their own alpha taken into account, so the edges keep the color of the text rather than fading towards black.
+	 * @param glyph The GlyphCoverage to render.
+	 * @param x The x position on the pixels array to render to.
+	 * @param y The y position on the pixels array to render to.
+	 * @param color The color of the glyph.
+	 */
+	public void renderCoverage(GlyphCoverage glyph, int x, int y, int color) {
+		byte[] coverage = glyph.getCoverage();
+		int glyphWidth = glyph.getWidth();
+		int startX = Math.max(clipX - x, 0);
+		int startY = Math.max(clipY - y, 0);
+		int endX = Math.min(glyphWidth, clipRight - x);
+		int endY = Math.min(glyph.getHeight(), clipBottom - y);
+		int colorRB = color & 0xFF00FF;
+		int colorAG = color >>> 8 & 0xFF00FF;
+		
+		for (int yy = startY; yy < endY; yy++) {
+			int source = yy * glyphWidth;
+			int target = x + (yy + y) * stride;
+			
+			for (int xx = startX; xx < endX; xx++) {
+				int alpha = coverage[source + xx] & 0xFF;
+				
+				if (alpha == 0)
+					continue;
+				else if (alpha == 255) {
+					pixels[target + xx] = color;
+					continue;
+				}
+				
+				int pixel = pixels[target + xx];
+				
+				if (pixel >>> 24 != 0xFF) {
+					pixels[target + xx] = composite(pixel, color, alpha);
+					continue;
+				}
+				
+				alpha += alpha >>> 7;
+				
+				int inverse = 256 - alpha;
+				int rb = (colorRB * alpha + (pixel & 0xFF00FF) * inverse) >>> 8 & 0xFF00FF;
+				int ag = (colorAG * alpha + (pixel >>> 8 & 0xFF00FF) * inverse) & 0xFF00FF00;
+				
+				pixels[target + xx] = ag | rb;
+			}
+		}
+	}
+	
+	/**
+	 * Composites a partly covered pixel of color over a pixel that is not fully opaque, with both treated as non-premultiplied ARGB.
+	 * @param pixel The pixel already there.
+	 * @param color The color being rendered.
+	 * @param coverage How much of the pixel the color covers, from 0 to 255.
+	 * @return The composited pixel.
+	 */
+	private static int composite(int pixel, int color, int coverage) {
+		int sourceAlpha = multiply(coverage, color >>> 24);
+		int pixelAlpha = multiply(pixel >>> 24, 255 - sourceAlpha);
+		int alpha = sourceAlpha + pixelAlpha;
+		
+		if (alpha == 0)
+			return 0;
+		
+		int reciprocal = RECIPROCALS[alpha];
+		int output = alpha << 24;
+		
+		for (int shift = 0; shift < 24; shift += 8)
+			output |= ((color >>> shift & 0xFF) * sourceAlpha + (pixel >>> shift & 0xFF) * pixelAlpha) * reciprocal + 0x8000 >>> 16 << shift;
+		
+		return output;
+	}
+	
+	/**
+	 * Multiplies two values from 0 to 255 as if they were fractions of 255, rounding to the nearest, without dividing.
+	 * @param a The first value.
+	 * @param b The second value.
+	 * @return <code>a * b / 255</code>, rounded.
+	 */
+	private static int multiply(int a, int b) {
+		return a * b * 257 + 0x8080 >>> 16;
+	}
+	
+	private static int[] createReciprocals() {
+		int[] reciprocals = new int[256];
+		
+		for (int i = 1; i < reciprocals.length; i++)
+			reciprocals[i] = (0x10000 + (i >>> 1)) / i;
+		
+		return reciprocals;
+	}
+	
+	/**
+	 * Gets the pixels of the RasterTarget.
+	 * @return The pixels of the RasterTarget.
+	 */
+	public int[] getPixels() {
+		return pixels;
+	}
+	
+	/**
+	 * Gets the width of the RasterTarget.
+	 * @return The width of the RasterTarget.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Gets the height of the RasterTarget.
+	 * @return The height of the RasterTarget.
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Gets the distance in the pixels array from the start of one row to the start of the next.
+	 * @return The stride of the RasterTarget.
+	 */
+	public int getStride() {
+		return stride;
+	}
+	
+	/**
+	 * Gets the left edge of the area that may be rendered to.
+	 * @return The left edge of the clip.
+	 */
+	public int getClipX() {
+		return clipX;
+	}
+	
+	/**
+	 * Gets the top edge of the area that may be rendered to.
+	 * @return The top edge of the clip.
+	 */
+	public int getClipY() {
+		return clipY;
+	}
+	
+	/**
+	 * Gets the right edge (exclusive) of the area that may be rendered to.
+	 * @return The right edge of the clip.
+	 */
+	public int getClipRight() {
+		return clipRight;
+	}
+	
+	/**
+	 * Gets the bottom edge (exclusive) of the area that may be rendered to.
+	 * @return The bottom edge of the clip.
+	 */
+	public int getClipBottom() {
+		return clipBottom;
+	}
+}
@@ -60,28 +60,41 @@ public abstract class SpriteBase {
 	 * @return The result of splitting each item in the SpriteSheet.
 	 */
 	public static final SpriteBase[] split(SpriteSheet sheet, int width, int height) {
-		int amount = (sheet.getWidth() / width) * (sheet.getHeight() / height);
+		return split(sheet.getPixels(), sheet.getWidth(), sheet.getHeight(), width, height);
+	}
+	
+	/**
+	 * Split the pixels of an entire sheet into an array of SpriteBases, each the width and height of the provided.  This is useful for a sheet that was not loaded as a SpriteSheet.
+	 * @param pixels The pixels of the sheet.
+	 * @param sheetWidth The width of the sheet.
+	 * @param sheetHeight The height of the sheet.
+	 * @param width The width of each SpriteBase.
+	 * @param height The height of each SpriteBase.
+	 * @return The result of splitting each item in the sheet.
+	 */
+	public static final SpriteBase[] split(int[] pixels, int sheetWidth, int sheetHeight, int width, int height) {
+		int amount = (sheetWidth / width) * (sheetHeight / height);
 		int current = 0;
 		
 		SpriteBase[] output = new SpriteBase[amount];
 		
-		for (int y = 0; y < sheet.getHeight() / height; y++) {
-			for (int x = 0; x < sheet.getWidth() / width; x++) {
-				int[] pixels = new int[width * height];
+		for (int y = 0; y < sheetHeight / height; y++) {
+			for (int x = 0; x < sheetWidth / width; x++) {
+				int[] sprite = new int[width * height];
 				
 				for (int yy = 0; yy < height; yy++) {
 					for (int xx = 0; xx < width; xx++) {
 						int ya = yy + y * height;
 						int xa = xx + x * width;
 						
-						pixels[xx + yy * width] = sheet.getPixels()[xa + ya * sheet.getWidth()];
+						sprite[xx + yy * width] = pixels[xa + ya * sheetWidth];
 					}
 				}
 				
-				output[current++] = new SpriteBase(pixels, width, height) {};
+				output[current++] = new SpriteBase(sprite, width, height) {};
 			}
 		}
-				
+		
 		return output;
 	}
 	
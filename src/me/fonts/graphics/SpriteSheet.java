@@ -1,6 +1,10 @@
 package me.fonts.graphics;
 
 import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
 
 import javax.imageio.ImageIO;
 
@@ -45,30 +49,33 @@ public final class SpriteSheet {
 	public static final SpriteSheet ARIAL_40PT = new SpriteSheet("/fonts/arial_40pt.png");
 	public static final SpriteSheet ARIAL_48PT = new SpriteSheet("/fonts/arial_48pt.png");
 	public static final SpriteSheet ARIAL_72PT = new SpriteSheet("/fonts/arial_72pt.png");
-
+	
 	/**
-	 * Creates an instance of a SpriteSheet and will attempt to lead it according to the provided path.  If no file is found in the provided path, the application will close with an Exception.
+	 * Creates an instance of a SpriteSheet and will attempt to lead it according to the provided path.
 	 * @param path The path of the image resource.
+	 * @throws UncheckedIOException If no image is found in the provided path, or it could not be read.
 	 */
 	public SpriteSheet(String path) {
 		this.path = path;
 		
-		System.out.print("Attempting to read " + path + ": ");
-		
 		try {
-			BufferedImage image = ImageIO.read(SpriteSheet.class.getResource(path));
+			URL resource = SpriteSheet.class.getResource(path);
+			
+			if (resource == null)
+				throw new FileNotFoundException(path);
+			
+			BufferedImage image = ImageIO.read(resource);
 			
-			System.out.println("Success!");
+			if (image == null)
+				throw new IOException(path + " is not an image.");
 			
 			width = image.getWidth();
 			height = image.getHeight();
 			pixels = new int[width * height];
 			
 			image.getRGB(0, 0, width, height, pixels, 0, width);
-		} catch (Exception e) {
-			System.err.println("Failed!");
-			e.printStackTrace();
-			System.exit(-1);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read " + path + ".", e);
 		}
 	}
 	
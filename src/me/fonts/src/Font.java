@@ -1,8 +1,13 @@
 package me.fonts.src;
 
 import java.awt.Rectangle;
+import java.lang.ref.SoftReference;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
+import me.fonts.graphics.GlyphAtlas;
 import me.fonts.graphics.IScreen;
+import me.fonts.graphics.RasterTarget;
 import me.fonts.graphics.SpriteBase;
 
 /**
@@ -20,9 +25,47 @@ public final class Font {
 										   + ",.'\"-=_+<>?|/\\`~";
 	
 	/**
-	 * The sprites of the font.
+	 * The color of the ink in every font sprite, which is replaced by the color of the text.
 	 */
-	private final SpriteBase[] SPRITES;
+	static final int INK_COLOR = 0xFF000000;
+	/**
+	 * The background color of every font sprite, which is never rendered.
+	 */
+	static final int KEY_COLOR = 0xFFFF00FF;
+	
+	/**
+	 * The actions stored in the GLYPHS table for characters that do not have a sprite.
+	 */
+	private static final byte SPACE = -1, NEW_LINE = -2, SHORT_SPACE = -3, TAB = -4, NEXT_COLOR = -5;
+	/**
+	 * Maps every ASCII character directly to its index in CHARACTERS, or to the action it performs when it has no sprite.
+	 */
+	private static final byte[] GLYPHS = createGlyphTable();
+	/**
+	 * Ignores every character, so that text can be laid out just to measure it.
+	 */
+	private static final GlyphSink MEASURE = (glyph, x, y, color) -> {};
+	/**
+	 * The colors to avoid rendering when drawing pre-rendered text.
+	 */
+	private static final int[] TRANSPARENT = { KEY_COLOR };
+	
+	/**
+	 * The loaded sprites of the font, or null while they are unloaded.
+	 */
+	private volatile FontData data;
+	/**
+	 * The sprites of the font since they were unloaded, kept until the garbage collector needs the memory, or null if there are none.  Sprites kept off the heap are never kept, since the garbage collector only sees the small objects pointing to them.
+	 */
+	private SoftReference<FontData> released;
+	/**
+	 * Loads the sprites of the font whenever they are needed.
+	 */
+	private final Supplier<FontData> loader;
+	/**
+	 * When the font was last used, so that the least recently used fonts are unloaded first.
+	 */
+	private volatile long lastUsed;
 	/**
 	 * The font size.
 	 */
@@ -32,39 +75,234 @@ public final class Font {
 	 */
 	private final String name;
 	/**
-	 * The array of offsets on the y-axis which is manually entered.
+	 * The FontFamily matching the name, or null if there is none.
 	 */
-	private final int[] yOffsets;
+	private final FontFamily family;
 	/**
-	 * The screen to render the font to.
+	 * Where recently wrapped text was broken into lines.
 	 */
-	private IScreen screen;
+	private final LineBreaks lineBreaks;
+	/**
+	 * The screen, clip, and options the font renders with when it is not given a RenderContext.
+	 */
+	private volatile RenderContext context;
 	
 	/**
-	 * Creates a new Font.  This is handled through the Fonts class.
-	 * @param sprites The sprites of the font.
+	 * Creates a new Font without loading its sprites.  This is handled through the Fonts class.
 	 * @param name The font family (all-capitals).
 	 * @param size The font size.
+	 * @param loader Loads the sprites of the font the first time it is used, and again whenever it has been unloaded.
 	 */
-	Font(SpriteBase[] sprites, String name, int size) {		
-		SPRITES = createSpriteXLimitations(0xFF000000, sprites);
-		
+	Font(String name, int size, Supplier<FontData> loader) {
 		this.name = name;
 		this.size = size;
-		this.yOffsets = createSpriteYLimitations();
+		this.loader = loader;
+		this.family = findFamily(name);
+		this.lineBreaks = new LineBreaks(this);
+		
+		context = RenderContext.EMPTY;
+	}
+	
+	/**
+	 * Creates the sprites of a font from the sprites of a sheet.  This is handled through the Fonts class.
+	 * @param sprites The sprites of the font.
+	 * @param size The font size.
+	 * @param direct If the packed sprites should be kept off the heap.
+	 * @return The loaded sprites of the font.
+	 */
+	static final FontData createData(SpriteBase[] sprites, int size, boolean direct) {
+		SpriteBase[] trimmed = createSpriteXLimitations(INK_COLOR, sprites);
+		GlyphAtlas atlas = GlyphAtlas.fromSprites(trimmed, INK_COLOR, KEY_COLOR);
+		
+		return new FontData(direct ? atlas.toDirect() : atlas, isSolid(atlas) ? null : trimmed, createSpriteYLimitations(size, atlas.size()));
+	}
+	
+	/**
+	 * Creates the sprites of a font from a GlyphAtlas that has already been packed, such as one memory-mapped from a file.  This is handled through the Fonts class.
+	 * @param atlas The packed sprites of the font, which must all be solid.
+	 * @param size The font size.
+	 * @return The loaded sprites of the font.
+	 */
+	static final FontData createData(GlyphAtlas atlas, int size) {
+		return new FontData(atlas, null, createSpriteYLimitations(size, atlas.size()));
+	}
+	
+	/**
+	 * Gets the loaded sprites of the Font, loading them if they are not loaded.
+	 * @return The loaded sprites of the Font.
+	 */
+	final FontData getData() {
+		FontData data = this.data;
+		
+		if (data == null) {
+			data = load();
+			Fonts.enforceBudget(this);
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Marks the Font as just used, and gets its loaded sprites.
+	 * @return The loaded sprites of the Font.
+	 */
+	final FontData use() {
+		lastUsed = Fonts.tick();
+		
+		return getData();
+	}
+	
+	private final synchronized FontData load() {
+		if (data == null) {
+			FontData output = released != null ? released.get() : null;
+			
+			data = output != null ? output : loader.get();
+			released = null;
+			
+			Fonts.addMemoryUsed(data.getBytes());
+		}
+		
+		return data;
+	}
+	
+	/**
+	 * Unloads the sprites of the Font.  Sprites on the heap stay softly reachable, so they are only lost if the garbage collector needs the memory.  Sprites off the heap are let go at once, so their memory is really freed.  Either way, they are loaded again the next time the Font is used.
+	 * @return If the sprites were loaded.
+	 */
+	final synchronized boolean unload() {
+		if (data == null)
+			return false;
+		
+		Fonts.addMemoryUsed(-data.getBytes());
+		
+		released = data.getAtlas().isDirect() ? null : new SoftReference<>(data);
+		data = null;
+		
+		return true;
+	}
+	
+	/**
+	 * Checks if the sprites of the Font are loaded.  Fonts load their sprites the first time they are used.
+	 * @return If the sprites are loaded.
+	 */
+	public final boolean isLoaded() {
+		return data != null;
+	}
+	
+	/**
+	 * Gets when the Font was last used, compared to other Fonts.
+	 * @return When the Font was last used.
+	 */
+	final long getLastUsed() {
+		return lastUsed;
 	}
 	
 	/**
 	 * Sets the screen to render the Font to.  This MUST be set BEFORE rendering any Fonts.
+	 * <br>If the screen is a RasterTarget, the Font will blit into its pixels directly.
 	 * @param screen The screen to render the Font to.
 	 * @return Itself for compounding.
 	 */
 	public final Font setScreen(IScreen screen) {
-		this.screen = screen;
+		context = context.withScreen(screen);
+		
+		return this;
+	}
+	
+	/**
+	 * Sets whether the Font is rendered anti-aliased.  The stair-steps along diagonal edges are softened by blending the color into the pixels beside them.
+	 * <br>This only applies when blitting to a RasterTarget, since other screens cannot be blended into; they are always rendered hard-edged.  Anti-aliased characters reach one pixel further on every side, so a TextLayer already holding this Font must be invalidated.
+	 * @param antialiased If the Font should be rendered anti-aliased.
+	 * @return Itself for compounding.
+	 */
+	public final Font setAntialiased(boolean antialiased) {
+		context = context.withAntialiased(antialiased);
+		
+		return this;
+	}
+	
+	/**
+	 * Checks if the Font is rendered anti-aliased when blitting to a RasterTarget.
+	 * @return If the Font is rendered anti-aliased.
+	 */
+	public final boolean isAntialiased() {
+		return context.isAntialiased();
+	}
+	
+	/**
+	 * Sets the cache that text rendered with this Font is kept in.  Text the Font renders often is then drawn as a single pre-rendered sprite.  The same TextCache may be shared by several Fonts.
+	 * <br>The cache is skipped while the Font is anti-aliased or clipped with <code>setClip</code>, and for text that uses the transparent color <code>0xFFFF00FF</code>.
+	 * @param cache The TextCache to use, or null to stop caching.
+	 * @return Itself for compounding.
+	 */
+	public final Font setCache(TextCache cache) {
+		context = context.withCache(cache);
+		
+		return this;
+	}
+	
+	/**
+	 * Gets the cache that text rendered with this Font is kept in.
+	 * @return The TextCache in use, or null if there is none.
+	 */
+	public final TextCache getCache() {
+		return context.getCache();
+	}
+	
+	/**
+	 * Restricts rendering to a rectangle of the screen.  Lines and characters entirely outside of the rectangle are skipped without being sent to the screen, although they are still included in the FontOutput.  Characters crossing the edge of the rectangle are sent to the screen whole.
+	 * <br>If the screen is a RasterTarget, its own clip is applied as well.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @return Itself for compounding.
+	 */
+	public final Font setClip(int x, int y, int width, int height) {
+		context = context.withClip(x, y, width, height);
+		
+		return this;
+	}
+	
+	/**
+	 * Allows rendering to the entire screen again.
+	 * @return Itself for compounding.
+	 */
+	public final Font resetClip() {
+		context = context.withoutClip();
+		
+		return this;
+	}
+	
+	/**
+	 * Replaces the screen, clip, and options the Font renders with, all at once.
+	 * @param context The RenderContext to render with when none is given.
+	 * @return Itself for compounding.
+	 */
+	public final Font setContext(RenderContext context) {
+		this.context = context == null ? RenderContext.EMPTY : context;
 		
 		return this;
 	}
 	
+	/**
+	 * Gets the screen, clip, and options the Font renders with when it is not given a RenderContext.  This ignores any RenderContext bound to the current thread.
+	 * @return The RenderContext of the Font.
+	 */
+	public final RenderContext getContext() {
+		return context;
+	}
+	
+	/**
+	 * Gets the RenderContext that rendering on the current thread uses when none is given: the one bound to the thread, or else the Font's own.
+	 * @return The RenderContext to render with.
+	 */
+	final RenderContext currentContext() {
+		RenderContext bound = RenderContext.getBound();
+		
+		return bound != null ? bound : context;
+	}
+	
 	/**
 	 * Render to the set screen the format provided, and located at the x and y provided.
 	 * @param format The format to form the text and colors.
@@ -182,49 +420,374 @@ public final class Font {
 	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
 	 */
 	public final FontOutput render(String text, int x, int y, int color, double spacing, double lineHeight, int...colors) {
+		return render(currentContext(), new FontOutput(), text, x, y, color, spacing, lineHeight, colors);
+	}
+	
+	/**
+	 * Render to the set screen the format provided, and located at the x and y provided, storing where the text was rendered in the FontOutput provided rather than creating a new one.
+	 * @param output The FontOutput to store the locations of the text in.
+	 * @param format The format to form the text and colors.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return The FontOutput provided.
+	 */
+	public final FontOutput render(FontOutput output, FontFormat format, int x, int y) {
+		return render(output, format.getText(), x, y, 0, size / 16 + 1, (int) (size / 2.5), format.getColors());
+	}
+	
+	/**
+	 * Render to the set screen the text provided, located at the x and y provided, with the hex color provided, and the spacing and lineHeight provided, storing where the text was rendered in the FontOutput provided rather than creating a new one.
+	 * <br>Reusing a FontOutput, and an array for the colors, lets text be rendered every frame without creating any garbage.
+	 * @param output The FontOutput to store the locations of the text in.
+	 * @param text The text to render to the screen.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The FontOutput provided.
+	 */
+	public final FontOutput render(FontOutput output, String text, int x, int y, int color, double spacing, double lineHeight, int...colors) {
+		return render(currentContext(), output, text, x, y, color, spacing, lineHeight, colors);
+	}
+	
+	/**
+	 * Render the format provided to the screen of the RenderContext provided, located at the x and y provided, regardless of the screen set in the Font.
+	 * @param context The screen, clip, and options to render with.
+	 * @param format The format to form the text and colors.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public final FontOutput render(RenderContext context, FontFormat format, int x, int y) {
+		return render(context, new FontOutput(), format.getText(), x, y, 0, size / 16 + 1, (int) (size / 2.5), format.getColors());
+	}
+	
+	/**
+	 * Render the text provided to the screen of the RenderContext provided, located at the x and y provided, regardless of the screen set in the Font.
+	 * <br>The text follows the same rules as <code>render(String, int, int, int...)</code>.
+	 * @param context The screen, clip, and options to render with.
+	 * @param text The text to render to the screen.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public final FontOutput render(RenderContext context, String text, int x, int y, int...colors) {
+		return render(context, new FontOutput(), text, x, y, 0, size / 16 + 1, (int) (size / 2.5), colors);
+	}
+	
+	/**
+	 * Render the text provided to the screen of the RenderContext provided, located at the x and y provided, with the hex color provided, and the spacing and lineHeight provided, storing where the text was rendered in the FontOutput provided.
+	 * <br>Nothing in the Font is changed by rendering, so any number of threads may render the same Font at once, each with its own RenderContext.
+	 * @param context The screen, clip, and options to render with.
+	 * @param output The FontOutput to store the locations of the text in.
+	 * @param text The text to render to the screen.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The FontOutput provided.
+	 */
+	public final FontOutput render(RenderContext context, FontOutput output, String text, int x, int y, int color, double spacing, double lineHeight, int...colors) {
+		TextCache cache = context.getCache();
+		
+		if (cache != null && isCacheable(context, color, colors)) {
+			TextCache.Entry entry = cache.get(this, text, color, spacing, lineHeight, colors);
+			
+			if (entry != null) {
+				if (entry.sprite != null)
+					context.getScreen().render(entry.sprite, x + entry.x, y + entry.y, TRANSPARENT);
+				
+				return output.set(this, x, y, entry.width, entry.height);
+			}
+		}
+		
+		long size = layout(context, text, x, y, color, spacing, lineHeight, colors, null);
+		
+		return output.set(this, x, y, (int) (size >>> 32), (int) size);
+	}
+	
+	/**
+	 * Measures the width the text would have if it were rendered, without rendering it.
+	 * @param text The text to measure.
+	 * @return The full width of the text.
+	 */
+	public final int measureWidth(String text) {
+		return measureWidth(text, size / 16 + 1);
+	}
+	
+	/**
+	 * Measures the width the text would have if it were rendered with the spacing provided, without rendering it.
+	 * @param text The text to measure.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @return The full width of the text.
+	 */
+	public final int measureWidth(String text, double spacing) {
+		return (int) (layout(text, 0, 0, 0, spacing, 0, null, MEASURE) >>> 32);
+	}
+	
+	/**
+	 * Measures the height the text would have if it were rendered, without rendering it.
+	 * @param text The text to measure.
+	 * @return The full height of the text.
+	 */
+	public final int measureHeight(String text) {
+		return measureHeight(text, (int) (size / 2.5));
+	}
+	
+	/**
+	 * Measures the height the text would have if it were rendered with the lineHeight provided, without rendering it.
+	 * @param text The text to measure.
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @return The full height of the text.
+	 */
+	public final int measureHeight(String text, double lineHeight) {
+		return (int) layout(text, 0, 0, 0, 0, lineHeight, null, MEASURE);
+	}
+	
+	/**
+	 * Measures the format provided without rendering it, storing the width in <code>output[0]</code> and the height in <code>output[1]</code>.
+	 * @param format The format to measure.
+	 * @param output The array to store the width and height in.
+	 */
+	public final void measure(FontFormat format, int[] output) {
+		measure(format.getText(), size / 16 + 1, (int) (size / 2.5), output);
+	}
+	
+	/**
+	 * Measures the text provided with the spacing and lineHeight provided, without rendering it, storing the width in <code>output[0]</code> and the height in <code>output[1]</code>.
+	 * @param text The text to measure.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param output The array to store the width and height in.
+	 */
+	public final void measure(String text, double spacing, double lineHeight, int[] output) {
+		long size = layout(text, 0, 0, 0, spacing, lineHeight, null, MEASURE);
+		
+		output[0] = (int) (size >>> 32);
+		output[1] = (int) size;
+	}
+	
+	/**
+	 * Breaks the text into lines no wider than the width provided, at the spaces between words, as it would be rendered with the default spacing.
+	 * @param text The text to wrap.
+	 * @param maxWidth The most width each line may have.
+	 * @return The text with <code>\n</code> in place of the spaces it is broken at.
+	 */
+	public final String wrap(String text, int maxWidth) {
+		return wrap(text, maxWidth, size / 16 + 1);
+	}
+	
+	/**
+	 * Breaks the text into lines no wider than the width provided, at the spaces between words, as it would be rendered with the spacing provided.
+	 * <br>Spaces, <code>\t</code>, and <code>\r</code> are all places a line may be broken, and are dropped where it is.  Existing <code>\n</code> are kept, and <code>\b</code> is kept where it was, so the colors are unchanged.  A word too wide for a line of its own is broken between its characters.
+	 * <br>The Font remembers where recently wrapped text was broken, so wrapping the same text to the same width again is a lookup, and wrapping it to a new width does not measure its characters again.
+	 * @param text The text to wrap.
+	 * @param maxWidth The most width each line may have.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @return The text with <code>\n</code> in place of the spaces it is broken at.
+	 */
+	public final String wrap(String text, int maxWidth, double spacing) {
+		return lineBreaks.wrap(text, maxWidth, spacing);
+	}
+	
+	/**
+	 * Render to the set screen the format provided, located at the x and y provided, wrapped to the width provided.
+	 * @param format The format to form the text and colors.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param maxWidth The most width each line may have.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public final FontOutput renderWrapped(FontFormat format, int x, int y, int maxWidth) {
+		return renderWrapped(format.getText(), x, y, maxWidth, 0, size / 16 + 1, (int) (size / 2.5), format.getColors());
+	}
+	
+	/**
+	 * Render to the set screen the text provided, located at the x and y provided, wrapped to the width provided.
+	 * @param text The text to render to the screen, following the same rules as <code>render</code>.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param maxWidth The most width each line may have.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public final FontOutput renderWrapped(String text, int x, int y, int maxWidth, int...colors) {
+		return renderWrapped(text, x, y, maxWidth, 0, size / 16 + 1, (int) (size / 2.5), colors);
+	}
+	
+	/**
+	 * Render to the set screen the text provided, located at the x and y provided, with the hex color provided, and the spacing and lineHeight provided, wrapped to the width provided.
+	 * @param text The text to render to the screen, following the same rules as <code>render</code>.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param maxWidth The most width each line may have.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public final FontOutput renderWrapped(String text, int x, int y, int maxWidth, int color, double spacing, double lineHeight, int...colors) {
+		return render(wrap(text, maxWidth, spacing), x, y, color, spacing, lineHeight, colors);
+	}
+	
+	/**
+	 * Lays out the format provided once, so that it can be rendered again and again without repeating the work.
+	 * @param format The format to form the text and colors.
+	 * @return The PreparedText to render to the screen.
+	 */
+	public final PreparedText prepare(FontFormat format) {
+		return prepare(format.getText(), 0, size / 16 + 1, (int) (size / 2.5), format.getColors());
+	}
+	
+	/**
+	 * Lays out the format provided once, with the hex color, spacing and lineHeight provided, so that it can be rendered again and again without repeating the work.
+	 * @param format The format to form the text and colors.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @return The PreparedText to render to the screen.
+	 */
+	public final PreparedText prepare(FontFormat format, int color, double spacing, double lineHeight) {
+		return prepare(format.getText(), color, spacing, lineHeight, format.getColors());
+	}
+	
+	/**
+	 * Lays out the text provided once, so that it can be rendered again and again without repeating the work.
+	 * <br>The text follows the same rules as <code>render</code>.
+	 * @param text The text to lay out.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The PreparedText to render to the screen.
+	 */
+	public final PreparedText prepare(String text, int...colors) {
+		return prepare(text, 0, size / 16 + 1, (int) (size / 2.5), colors);
+	}
+	
+	/**
+	 * Lays out the text provided once, with the hex color, spacing and lineHeight provided, so that it can be rendered again and again without repeating the work.
+	 * <br>The text follows the same rules as <code>render</code>.
+	 * @param text The text to lay out.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The PreparedText to render to the screen.
+	 */
+	public final PreparedText prepare(String text, int color, double spacing, double lineHeight, int...colors) {
+		PreparedText prepared = new PreparedText(this, text.length());
+		
+		prepared.finish(layout(text, 0, 0, color, spacing, lineHeight, colors, prepared::add));
+		
+		return prepared;
+	}
+	
+	/**
+	 * Walks through the text without rendering it, adding each character to the GlyphSink.
+	 * @param text The text to lay out.
+	 * @param x The x position of the text.
+	 * @param y The y position of the text.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter.
+	 * @param lineHeight The height between lines when using <code>\n</code>.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>, or null to ignore <code>\b</code>.
+	 * @param sink The GlyphSink to add each character to.
+	 * @return The width of the text in the upper 32 bits, and the height of the text in the lower 32 bits.
+	 */
+	final long layout(String text, int x, int y, int color, double spacing, double lineHeight, int[] colors, GlyphSink sink) {
+		return layout(RenderContext.EMPTY, text, x, y, color, spacing, lineHeight, colors, sink);
+	}
+	
+	/**
+	 * Walks through the text, rendering each character to the screen of the RenderContext, or adding it to the GlyphSink if one is provided.
+	 * <br>When rendering, lines and characters that fall outside of the clip are only measured; they are never sent to the screen.
+	 * @param context The screen, clip, and options to render with.
+	 * @param text The text to lay out.
+	 * @param x The x position of the text.
+	 * @param y The y position of the text.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter.
+	 * @param lineHeight The height between lines when using <code>\n</code>.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>, or null to ignore <code>\b</code>.
+	 * @param sink The GlyphSink to add each character to, or null to render each character to the screen.
+	 * @return The width of the text in the upper 32 bits, and the height of the text in the lower 32 bits.
+	 */
+	final long layout(RenderContext context, CharSequence text, int x, int y, int color, double spacing, double lineHeight, int[] colors, GlyphSink sink) {
 		double xOffset = 0;
 		double line = 0;
 		int width = 0;
 		int height = 0;
 		int currentColor = 0;
 		
+		int clipX = context.getClipX();
+		int clipY = context.getClipY();
+		int clipRight = context.getClipRight();
+		int clipBottom = context.getClipBottom();
+		RasterTarget raster = context.getRaster();
+		
+		if (raster != null) {
+			clipX = Math.max(clipX, raster.getClipX());
+			clipY = Math.max(clipY, raster.getClipY());
+			clipRight = Math.min(clipRight, raster.getClipRight());
+			clipBottom = Math.min(clipBottom, raster.getClipBottom());
+			
+			if (context.isAntialiased()) {
+				clipX--;
+				clipY--;
+				clipRight++;
+				clipBottom++;
+			}
+		}
+		
+		FontData data = use();
+		GlyphAtlas atlas = data.getAtlas();
+		int inkTop = data.getInkTop();
+		int inkBottom = data.getInkBottom();
+		
+		int lineY = y;
+		boolean lineVisible = lineY + inkTop < clipBottom && lineY + inkBottom > clipY;
+		
 		for (int i = 0; i < text.length(); i++) {
 			char c = text.charAt(i);
 			
-			int index = CHARACTERS.indexOf(c);
+			int index = c < GLYPHS.length ? GLYPHS[c] : SPACE;
 			
-			if (index == -1 && c != '\n' && c != '\r' && c != '\t' && c != '\b') {
-				xOffset += size / 2 + size / 5;
-				continue;
-			} else if (c == '\n') {
-				xOffset = 0;
-				line++;
-				continue;
-			} else if (c == '\r') {
-				xOffset += (size / 2 + size / 5) >> 1;
-				continue;
-			} else if (c == '\t') {
-				xOffset += (size / 2 + size / 5) << 1;
-				continue;
-			} else if (c == '\b') {
-				color = colors[currentColor++];
-				continue;
+			switch (index) {
+				case SPACE:
+					xOffset += size / 2 + size / 5;
+					continue;
+				case NEW_LINE:
+					xOffset = 0;
+					line++;
+					lineY = y + (int) (line * (size + lineHeight));
+					lineVisible = lineY + inkTop < clipBottom && lineY + inkBottom > clipY;
+					continue;
+				case SHORT_SPACE:
+					xOffset += (size / 2 + size / 5) >> 1;
+					continue;
+				case TAB:
+					xOffset += (size / 2 + size / 5) << 1;
+					continue;
+				case NEXT_COLOR:
+					if (colors != null)
+						color = colors[currentColor++];
+					continue;
 			}
 			
-			SpriteBase sprite = new SpriteBase(SPRITES[index]) {};
-			
-			if (color != 0xFF000000)
-				sprite.replaceColor(0xFF000000, color);
+			int glyphX = x + (int) xOffset;
 			
-			int yOffset = yOffsets[index];
-			
-			if (screen == null) {
-				System.err.println("Screen is not set in this font.  Please use .setScreen() to set it.");
-				break;
-			} else
-				screen.render(sprite, x + (int) xOffset, y + yOffset + (int) (line * (size + lineHeight)), 0xFFFF00FF);
+			if (sink != null)
+				sink.add(index, glyphX, y + data.getYOffset(index) + (int) (line * (size + lineHeight)), color);
+			else if (lineVisible && glyphX < clipRight && glyphX + atlas.getWidth(index) > clipX) {
+				if (!renderGlyph(context, data, index, glyphX, lineY + data.getYOffset(index), color))
+					break;
+			}
 			
-			xOffset += sprite.getWidth() + spacing;
+			xOffset += atlas.getWidth(index) + spacing;
 			
 			if (xOffset > width)
 				width = (int) xOffset;
@@ -232,12 +795,162 @@ public final class Font {
 		
 		height = (int) ((line + 1) * (size + lineHeight));
 		
-		Rectangle bounds = new Rectangle(x, y, width, height);
+		return (long) width << 32 | height & 0xFFFFFFFFL;
+	}
+	
+	/**
+	 * Renders text into a new sprite for a TextCache.  The sprite only covers the ink, and everything else in it is transparent.
+	 * @param text The text to render.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter.
+	 * @param lineHeight The height between lines when using <code>\n</code>.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The pre-rendered text.
+	 */
+	final TextCache.Entry createEntry(String text, int color, double spacing, double lineHeight, int[] colors) {
+		PreparedText prepared = prepare(text, color, spacing, lineHeight, colors);
+		Rectangle ink = prepared.getInkBounds(0, 0);
+		SpriteBase sprite = null;
+		
+		if (!ink.isEmpty()) {
+			int[] pixels = new int[ink.width * ink.height];
+			
+			Arrays.fill(pixels, KEY_COLOR);
+			prepared.render(new RenderContext(new RasterTarget(pixels, ink.width, ink.height)), -ink.x, -ink.y);
+			sprite = new SpriteBase(pixels, ink.width, ink.height) {};
+		}
+		
+		return new TextCache.Entry(sprite, ink.x, ink.y, prepared.getWidth(), prepared.getHeight());
+	}
+	
+	private final boolean isCacheable(RenderContext context, int color, int[] colors) {
+		if (context.getScreen() == null || context.isAntialiased() || context.isClipped() || color == KEY_COLOR)
+			return false;
+		
+		if (colors != null)
+			for (int c : colors)
+				if (c == KEY_COLOR)
+					return false;
+		
+		return true;
+	}
+	
+	/**
+	 * Renders a single character to the screen of a RenderContext.
+	 * @param context The screen and options to render with.
+	 * @param data The loaded sprites of the Font, from <code>use</code>.
+	 * @param index The index of the character in CHARACTERS.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param color The color of the character.
+	 * @return If the character could be rendered; false if the RenderContext has no screen.
+	 */
+	final boolean renderGlyph(RenderContext context, FontData data, int index, int x, int y, int color) {
+		if (context.getRaster() != null)
+			renderGlyph(context.getRaster(), data, context.isAntialiased(), index, x, y, color);
+		else if (context.getScreen() == null) {
+			System.err.println("Screen is not set in this font.  Please use .setScreen() to set it.");
+			return false;
+		} else
+			context.getScreen().renderTinted(data.getSprite(index), x, y, INK_COLOR, color, KEY_COLOR);
 		
-		return new FontOutput(FontFamily.valueOf(name), size, bounds);
+		return true;
 	}
 	
-	private final SpriteBase[] createSpriteXLimitations(int color, SpriteBase[] sprites) {
+	/**
+	 * Renders a single character straight into a RasterTarget, regardless of the screen that has been set.
+	 * @param target The RasterTarget to render to.
+	 * @param data The loaded sprites of the Font, from <code>use</code>.
+	 * @param antialiased If the character should be rendered anti-aliased.
+	 * @param index The index of the character in CHARACTERS.
+	 * @param x The x position to render on the RasterTarget.
+	 * @param y The y position to render on the RasterTarget.
+	 * @param color The color of the character.
+	 */
+	final void renderGlyph(RasterTarget target, FontData data, boolean antialiased, int index, int x, int y, int color) {
+		GlyphAtlas atlas = data.getAtlas();
+		
+		if (atlas.isSolid(index) && antialiased)
+			target.renderCoverage(data.getCoverage(index), x - 1, y - 1, color);
+		else if (atlas.isSolid(index))
+			target.fillSpans(atlas.getSpans(), atlas.getSpanStart(index), atlas.getSpanEnd(index), x, y, color);
+		else
+			target.renderTinted(data.getSprite(index), x, y, INK_COLOR, color, KEY_COLOR);
+	}
+	
+	/**
+	 * Measures how far each character of the text moves the character after it, exactly as <code>layout</code> does.
+	 * @param text The text to measure.
+	 * @param spacing The spacing between each letter.
+	 * @return The advance of every character in the text.
+	 */
+	final double[] measureAdvances(String text, double spacing) {
+		GlyphAtlas atlas = use().getAtlas();
+		double[] output = new double[text.length()];
+		
+		for (int i = 0; i < output.length; i++) {
+			char c = text.charAt(i);
+			
+			int index = c < GLYPHS.length ? GLYPHS[c] : SPACE;
+			
+			switch (index) {
+				case SPACE:
+					output[i] = size / 2 + size / 5;
+					break;
+				case SHORT_SPACE:
+					output[i] = (size / 2 + size / 5) >> 1;
+					break;
+				case TAB:
+					output[i] = (size / 2 + size / 5) << 1;
+					break;
+				case NEW_LINE:
+				case NEXT_COLOR:
+					break;
+				default:
+					output[i] = atlas.getWidth(index) + spacing;
+			}
+		}
+		
+		return output;
+	}
+	
+	/**
+	 * Checks if a line may be broken at the character provided; that is, if it is rendered as a space, a short space, or a tab.
+	 * @param c The character to check.
+	 * @return If the character is a space.
+	 */
+	static final boolean isSpace(char c) {
+		int index = c < GLYPHS.length ? GLYPHS[c] : SPACE;
+		
+		return index == SPACE || index == SHORT_SPACE || index == TAB;
+	}
+	
+	private static final FontFamily findFamily(String name) {
+		for (FontFamily family : FontFamily.values())
+			if (family.name().equalsIgnoreCase(name))
+				return family;
+		
+		return null;
+	}
+	
+	private static final byte[] createGlyphTable() {
+		byte[] output = new byte[128];
+		
+		for (int i = 0; i < output.length; i++)
+			output[i] = SPACE;
+		
+		for (int i = 0; i < CHARACTERS.length(); i++)
+			output[CHARACTERS.charAt(i)] = (byte) i;
+		
+		output['\n'] = NEW_LINE;
+		output['\r'] = SHORT_SPACE;
+		output['\t'] = TAB;
+		output['\b'] = NEXT_COLOR;
+		
+		return output;
+	}
+	
+	private static final SpriteBase[] createSpriteXLimitations(int color, SpriteBase[] sprites) {
 		SpriteBase[] output = new SpriteBase[sprites.length];
 		int current = 0;
 		
@@ -256,58 +969,66 @@ public final class Font {
 			for (int y = 0; y < sprite.getHeight(); y++)
 				for (int x = 0; x < maxX; x++)
 					pixels[x + y * maxX] = sprite.getPixels()[x + y * sprite.getWidth()];
-						
+			
 			output[current++] = new SpriteBase(pixels, maxX, sprite.getHeight()) {};
 		}
 		
 		return output;
 	}
 	
-	private final int[] createSpriteYLimitations() {
+	private static final boolean isSolid(GlyphAtlas atlas) {
+		for (int i = 0; i < atlas.size(); i++)
+			if (!atlas.isSolid(i))
+				return false;
+		
+		return true;
+	}
+	
+	private static final int[] createSpriteYLimitations(int size, int count) {
 		switch (size) {
 			case 8:
-				return getYFor8();
+				return getYFor8(count);
 			case 9:
-				return getYFor9();
+				return getYFor9(count);
 			case 10:
-				return getYFor10();
+				return getYFor10(count);
 			case 11:
-				return getYFor11();
+				return getYFor11(count);
 			case 12:
-				return getYFor12();
+				return getYFor12(count);
 			case 14:
-				return getYFor14();
+				return getYFor14(count);
 			case 16:
-				return getYFor16();
+				return getYFor16(count);
 			case 18:
-				return getYFor18();
+				return getYFor18(count);
 			case 20:
-				return getYFor20();
+				return getYFor20(count);
 			case 22:
-				return getYFor22();
+				return getYFor22(count);
 			case 24:
-				return getYFor24();
+				return getYFor24(count);
 			case 26:
-				return getYFor26();
+				return getYFor26(count);
 			case 28:
-				return getYFor28();
+				return getYFor28(count);
 			case 32:
-				return getYFor32();
+				return getYFor32(count);
 			case 36:
-				return getYFor36();
+				return getYFor36(count);
 			case 40:
-				return getYFor40();
+				return getYFor40(count);
 			case 48:
-				return getYFor48();
+				return getYFor48(count);
 			case 72:
-				return getYFor72();
+				return getYFor72(count);
 		}
 		
-		return new int[SPRITES.length];
+		return new int[count];
 	}
 	
-	private final int[] getYFor8() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor8(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -345,8 +1066,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor9() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor9(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -384,8 +1105,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor10() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor10(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -425,8 +1146,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor11() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor11(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -465,8 +1186,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor12() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor12(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -509,8 +1230,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor14() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor14(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -559,8 +1280,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor16() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor16(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -608,8 +1329,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor18() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor18(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -657,9 +1378,9 @@ public final class Font {
 		
 		return output;
 	}
-
-	private final int[] getYFor20() {
-		int[] output = new int[SPRITES.length];
+	
+	private static final int[] getYFor20(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -710,8 +1431,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor22() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor22(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -764,8 +1485,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor24() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor24(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -818,8 +1539,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor26() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor26(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -874,8 +1595,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor28() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor28(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -933,8 +1654,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor32() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor32(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -990,8 +1711,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor36() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor36(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -1055,8 +1776,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor40() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor40(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -1122,8 +1843,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor48() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor48(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -1189,8 +1910,8 @@ public final class Font {
 		return output;
 	}
 	
-	private final int[] getYFor72() {
-		int[] output = new int[SPRITES.length];
+	private static final int[] getYFor72(int count) {
+		int[] output = new int[count];
 		
 		for (int i = 0; i < CHARACTERS.length(); i++) {
 			switch (CHARACTERS.charAt(i)) {
@@ -1262,6 +1983,14 @@ public final class Font {
 		return output;
 	}
 	
+	/**
+	 * Get the FontFamily of the Font.
+	 * @return The FontFamily of the Font, or null if its font family is not one of the FontFamily values.
+	 */
+	public FontFamily getFamily() {
+		return family;
+	}
+	
 	/**
 	 * Get the font family of the Font (all-capitals).
 	 * @return The font family of the Font (all-capitals).
@@ -1278,12 +2007,20 @@ public final class Font {
 		return size;
 	}
 	
+	/**
+	 * Get the packed sprites of the Font.
+	 * @return The GlyphAtlas of the Font.
+	 */
+	public GlyphAtlas getAtlas() {
+		return use().getAtlas();
+	}
+	
 	/**
 	 * Get a clone of the SpriteBases the Font contains.
 	 * @return A clone of the SpriteBases the Font contains.
 	 */
 	public SpriteBase[] getSprites() {
-		return SPRITES.clone();
+		return use().getSprites().clone();
 	}
 	
 	/**
@@ -1291,7 +2028,7 @@ public final class Font {
 	 * @return The IScreen that was provided to the Font.
 	 */
 	public IScreen getRenderer() {
-		return screen;
+		return context.getScreen();
 	}
 	
 	/**
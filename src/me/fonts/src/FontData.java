@@ -0,0 +1,168 @@
+package me.fonts.src;
+
+import me.fonts.graphics.GlyphAtlas;
+import me.fonts.graphics.GlyphCoverage;
+import me.fonts.graphics.SpriteBase;
+
+/**
+ * The loaded sprites of a single Font.  A Font may drop its FontData to save memory and load it again the next time it is used.
+ * @author Joshua Diemer
+ *
+ */
+final class FontData {
+	/**
+	 * The sprites of the font, packed together as bits and runs of ink.
+	 */
+	private final GlyphAtlas atlas;
+	/**
+	 * The offset on the y-axis of every sprite, relative to its line.
+	 */
+	private final int[] yOffsets;
+	/**
+	 * The highest and lowest any sprite reaches relative to its line, used to skip lines that are outside of the clip.
+	 */
+	private final int inkTop, inkBottom;
+	/**
+	 * The full-color sprites of the font.  These are only kept when a sprite contains more than ink, and are otherwise created from the atlas once they are needed.
+	 */
+	private volatile SpriteBase[] sprites;
+	/**
+	 * The anti-aliased sprites of the font, created from the atlas the first time they are needed.
+	 */
+	private volatile GlyphCoverage[] coverage;
+	
+	/**
+	 * Creates the FontData of a Font.
+	 * @param atlas The trimmed sprites of the font, packed together.
+	 * @param sprites The trimmed full-color sprites of the font, or null if every sprite in the atlas is solid.
+	 * @param yOffsets The offset on the y-axis of every sprite, relative to its line.
+	 */
+	FontData(GlyphAtlas atlas, SpriteBase[] sprites, int[] yOffsets) {
+		this.atlas = atlas;
+		this.sprites = sprites;
+		this.yOffsets = yOffsets;
+		
+		int inkTop = 0;
+		int inkBottom = 0;
+		
+		for (int i = 0; i < atlas.size(); i++) {
+			inkTop = Math.min(inkTop, yOffsets[i]);
+			inkBottom = Math.max(inkBottom, yOffsets[i] + atlas.getHeight(i));
+		}
+		
+		this.inkTop = inkTop;
+		this.inkBottom = inkBottom;
+	}
+	
+	/**
+	 * Gets the packed sprites of the font.
+	 * @return The GlyphAtlas of the font.
+	 */
+	GlyphAtlas getAtlas() {
+		return atlas;
+	}
+	
+	/**
+	 * Gets the offset on the y-axis of a single sprite.
+	 * @param index The index of the character in CHARACTERS.
+	 * @return The offset of the sprite, relative to its line.
+	 */
+	int getYOffset(int index) {
+		return yOffsets[index];
+	}
+	
+	/**
+	 * Gets the highest any sprite reaches relative to its line.
+	 * @return The top of the ink.
+	 */
+	int getInkTop() {
+		return inkTop;
+	}
+	
+	/**
+	 * Gets the lowest any sprite reaches relative to its line.
+	 * @return The bottom of the ink.
+	 */
+	int getInkBottom() {
+		return inkBottom;
+	}
+	
+	/**
+	 * Gets the full-color sprite of a single character, creating every sprite from the atlas the first time.
+	 * @param index The index of the character in CHARACTERS.
+	 * @return The sprite of the character.
+	 */
+	SpriteBase getSprite(int index) {
+		return getSprites()[index];
+	}
+	
+	/**
+	 * Gets the full-color sprites of the font, creating them from the atlas the first time.  The array must not be modified.
+	 * @return The sprites of the font.
+	 */
+	SpriteBase[] getSprites() {
+		SpriteBase[] sprites = this.sprites;
+		
+		return sprites != null ? sprites : createSprites();
+	}
+	
+	/**
+	 * Gets the anti-aliased sprite of a single character, creating every anti-aliased sprite from the atlas the first time.
+	 * @param index The index of the character in CHARACTERS.
+	 * @return The anti-aliased sprite of the character.
+	 */
+	GlyphCoverage getCoverage(int index) {
+		GlyphCoverage[] coverage = this.coverage;
+		
+		if (coverage == null)
+			coverage = createCoverage();
+		
+		return coverage[index];
+	}
+	
+	/**
+	 * Gets roughly how many bytes the FontData holds, counting the sprites that have been created so far.
+	 * @return The bytes the FontData holds.
+	 */
+	long getBytes() {
+		long output = atlas.getBytes() + yOffsets.length * Integer.BYTES;
+		SpriteBase[] sprites = this.sprites;
+		GlyphCoverage[] coverage = this.coverage;
+		
+		if (sprites != null)
+			for (SpriteBase sprite : sprites)
+				output += (long) sprite.getWidth() * sprite.getHeight() * Integer.BYTES;
+		
+		if (coverage != null)
+			for (GlyphCoverage glyph : coverage)
+				output += (long) glyph.getWidth() * glyph.getHeight();
+		
+		return output;
+	}
+	
+	private synchronized SpriteBase[] createSprites() {
+		if (sprites == null) {
+			SpriteBase[] output = new SpriteBase[atlas.size()];
+			
+			for (int i = 0; i < output.length; i++)
+				output[i] = atlas.getMask(i).toSprite(Font.INK_COLOR, Font.KEY_COLOR);
+			
+			sprites = output;
+		}
+		
+		return sprites;
+	}
+	
+	private synchronized GlyphCoverage[] createCoverage() {
+		if (coverage == null) {
+			GlyphCoverage[] output = new GlyphCoverage[atlas.size()];
+			
+			for (int i = 0; i < output.length; i++)
+				output[i] = GlyphCoverage.fromMask(atlas.getMask(i));
+			
+			coverage = output;
+		}
+		
+		return coverage;
+	}
+}
@@ -11,13 +11,9 @@ import java.awt.Rectangle;
  */
 public final class FontOutput {
 	/**
-	 * The font family of what was just printed.
+	 * The Font that printed the text.
 	 */
-	private FontFamily family;
-	/**
-	 * The font size of what was just printed.
-	 */
-	private int size;
+	private Font font;
 	/**
 	 * The starting x position of the text.
 	 */
@@ -44,21 +40,22 @@ public final class FontOutput {
 	private int bottom;
 	
 	/**
-	 * Creates an instance of the FontOutput class; generally created after a Font has rendered to the screen.
-	 * @param family The font family of the rendered text.
-	 * @param size The font size of the rendered text.
-	 * @param bounds The overall boundary of the text.
+	 * Creates an empty instance of the FontOutput class, to be given to <code>Font.render</code> and filled in again every time it renders.
+	 * <br>Until it is first rendered with, it has no Font.
 	 */
-	FontOutput(FontFamily family, int size, Rectangle bounds) {
-		this.family = family;
-		this.size = size;
+	public FontOutput() {}
+	
+	FontOutput set(Font font, int x, int y, int width, int height) {
+		this.font = font;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
 		
-		x = bounds.x;
-		y = bounds.y;
-		width = bounds.width;
-		height = bounds.height;
 		right = x + width;
 		bottom = y + height;
+		
+		return this;
 	}
 	
 	/**
@@ -186,7 +183,7 @@ public final class FontOutput {
 	 * @return The Font that rendered to the screen.
 	 */
 	public Font getFont() {
-		return Fonts.getFont(family, size);
+		return font;
 	}
 	
 	/**
@@ -194,7 +191,7 @@ public final class FontOutput {
 	 * @return The FontFamily that rendered to the screen.
 	 */
 	public FontFamily getFamily() {
-		return family;
+		return font.getFamily();
 	}
 	
 	/**
@@ -202,7 +199,7 @@ public final class FontOutput {
 	 * @return The Font Size that rendered to the screen.
 	 */
 	public int getFontSize() {
-		return size;
+		return font.getSize();
 	}
 	
 	/**
@@ -258,7 +255,18 @@ public final class FontOutput {
 	 * @return The starting position of the text rendered to the screen.
 	 */
 	public Point getLocation() {
-		return new Point(x, y);
+		return getLocation(new Point());
+	}
+	
+	/**
+	 * Gets the starting position of the rendering, storing it in the Point provided.
+	 * @param output The Point to store the starting position in.
+	 * @return The Point provided.
+	 */
+	public Point getLocation(Point output) {
+		output.setLocation(x, y);
+		
+		return output;
 	}
 	
 	/**
@@ -266,7 +274,18 @@ public final class FontOutput {
 	 * @return The ending position of the text rendered to the screen.
 	 */
 	public Point getEndingLocation() {
-		return new Point(right, bottom);
+		return getEndingLocation(new Point());
+	}
+	
+	/**
+	 * Gets the ending position of the rendering, storing it in the Point provided.
+	 * @param output The Point to store the ending position in.
+	 * @return The Point provided.
+	 */
+	public Point getEndingLocation(Point output) {
+		output.setLocation(right, bottom);
+		
+		return output;
 	}
 	
 	/**
@@ -274,7 +293,18 @@ public final class FontOutput {
 	 * @return The dimensions of the text rendered to the screen.
 	 */
 	public Dimension getSize() {
-		return new Dimension(width, height);
+		return getSize(new Dimension());
+	}
+	
+	/**
+	 * Gets the dimensions of the rendering, storing them in the Dimension provided.
+	 * @param output The Dimension to store the dimensions in.
+	 * @return The Dimension provided.
+	 */
+	public Dimension getSize(Dimension output) {
+		output.setSize(width, height);
+		
+		return output;
 	}
 	
 	/**
@@ -282,6 +312,17 @@ public final class FontOutput {
 	 * @return The boundaries of the text rendered to the screen.
 	 */
 	public Rectangle getBounds() {
-		return new Rectangle(x, y, width, height);
+		return getBounds(new Rectangle());
+	}
+	
+	/**
+	 * Get all the boundaries of the rendering, storing them in the Rectangle provided.
+	 * @param output The Rectangle to store the boundaries in.
+	 * @return The Rectangle provided.
+	 */
+	public Rectangle getBounds(Rectangle output) {
+		output.setBounds(x, y, width, height);
+		
+		return output;
 	}
 }
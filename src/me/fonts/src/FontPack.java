@@ -0,0 +1,205 @@
+package me.fonts.src;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import me.fonts.graphics.GlyphAtlas;
+
+/**
+ * A precompiled pack of every Font, so that the sprite sheets do not have to be decoded, split, and trimmed each time the application starts.
+ * <br>The pack holds the trimmed sprites of each Font as packed bits, along with their offsets on the y-axis.  Fonts reads <code>/fonts/fonts.pack</code> when it exists, and only falls back to the sprite sheets when it does not.  Each Font's sprites are read from the pack separately, the first time it is used.
+ * <br>Run this class to write the pack again after changing the sprite sheets.
+ * @author Joshua Diemer
+ *
+ */
+public final class FontPack {
+	/**
+	 * The location of the pack in the Project's resources.
+	 */
+	public static final String RESOURCE = "/fonts/fonts.pack";
+	/**
+	 * The first int of a pack.
+	 */
+	private static final int MAGIC = 0x46504B31;
+	/**
+	 * The version of the format written by <code>write</code>.
+	 */
+	private static final int VERSION = 1;
+	
+	/**
+	 * The bytes of the pack from the last time it was read, so that loading several Fonts at once only reads it once.
+	 */
+	private static volatile SoftReference<byte[]> cached;
+	
+	/**
+	 * Writes a pack of every Font from the sprite sheets.
+	 * @param args The file to write to, which is <code>res/fonts/fonts.pack</code> if none is given.
+	 * @throws IOException If the pack could not be written.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args.length > 0 ? args[0] : "res" + RESOURCE);
+		Font[] fonts = Fonts.createSheetFonts(false);
+		
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(fonts, out);
+		}
+		
+		System.out.println("Wrote " + fonts.length + " fonts to " + path + " (" + Files.size(path) + " bytes).");
+	}
+	
+	/**
+	 * Writes a pack of the Fonts provided.
+	 * @param fonts The Fonts to write.
+	 * @param out The stream to write to.  It is flushed, but not closed.
+	 * @throws IOException If the stream could not be written to.
+	 */
+	public static void write(Font[] fonts, OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(fonts.length);
+		
+		for (Font font : fonts) {
+			FontData loaded = font.getData();
+			GlyphAtlas atlas = loaded.getAtlas();
+			byte[] name = font.getName().getBytes(StandardCharsets.US_ASCII);
+			int words = 0;
+			
+			data.writeInt(name.length);
+			data.write(name);
+			data.writeInt(font.getSize());
+			data.writeInt(atlas.size());
+			
+			for (int i = 0; i < atlas.size(); i++) {
+				if (!atlas.isSolid(i))
+					throw new IllegalArgumentException(font + " has sprites with more than one color, which cannot be packed.");
+				
+				data.writeInt(atlas.getWidth(i));
+				words += (atlas.getWidth(i) * atlas.getHeight(i) + 63) >>> 6;
+			}
+			
+			for (int i = 0; i < atlas.size(); i++)
+				data.writeInt(atlas.getHeight(i));
+			
+			for (int i = 0; i < atlas.size(); i++)
+				data.writeInt(loaded.getYOffset(i));
+			
+			data.writeInt(words);
+			
+			for (int i = 0; i < atlas.size(); i++)
+				for (long word : atlas.getMask(i).getBits())
+					data.writeLong(word);
+		}
+		
+		data.flush();
+	}
+	
+	/**
+	 * Creates every Font in the pack without loading any of their sprites.  Each Font loads its own sprites from the pack the first time it is used.
+	 * @param direct If the packed sprites of each Font should be kept off the heap.
+	 * @return The Fonts in the pack, or null if there is no pack.
+	 * @throws IOException If the pack could not be read, or is not a pack.
+	 */
+	static Font[] createFonts(boolean direct) throws IOException {
+		ByteBuffer data = readResource();
+		
+		if (data == null)
+			return null;
+		
+		try {
+			if (data.getInt() != MAGIC)
+				throw new IOException(RESOURCE + " does not hold a font pack.");
+			else if (data.getInt() != VERSION)
+				throw new IOException(RESOURCE + " was written by an unsupported version.");
+			
+			Font[] output = new Font[data.getInt()];
+			
+			for (int i = 0; i < output.length; i++) {
+				byte[] name = new byte[data.getInt()];
+				
+				data.get(name);
+				
+				int size = data.getInt();
+				int position = data.position();
+				int count = data.getInt();
+				
+				data.position(data.position() + count * 3 * Integer.BYTES);
+				
+				int words = data.getInt();
+				
+				data.position(data.position() + words * Long.BYTES);
+				
+				String family = new String(name, StandardCharsets.US_ASCII);
+				
+				output[i] = new Font(family, size, Fonts.withAtlas(family, size, () -> load(position, direct)));
+			}
+			
+			return output;
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException(RESOURCE + " is incomplete.", e);
+		}
+	}
+	
+	private static FontData load(int position, boolean direct) {
+		try {
+			ByteBuffer data = readResource();
+			
+			if (data == null)
+				throw new IOException(RESOURCE + " no longer exists.");
+			
+			data.position(position);
+			
+			int count = data.getInt();
+			int[] widths = new int[count];
+			int[] heights = new int[count];
+			int[] yOffsets = new int[count];
+			
+			data.asIntBuffer().get(widths).get(heights).get(yOffsets);
+			data.position(data.position() + count * 3 * Integer.BYTES);
+			
+			long[] bits = new long[data.getInt()];
+			
+			data.asLongBuffer().get(bits);
+			
+			GlyphAtlas atlas = GlyphAtlas.fromBits(widths, heights, bits);
+			
+			return new FontData(direct ? atlas.toDirect() : atlas, null, yOffsets);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new UncheckedIOException(new IOException(RESOURCE + " is incomplete.", e));
+		}
+	}
+	
+	private static ByteBuffer readResource() throws IOException {
+		SoftReference<byte[]> cached = FontPack.cached;
+		byte[] data = cached != null ? cached.get() : null;
+		
+		if (data == null) {
+			try (InputStream in = FontPack.class.getResourceAsStream(RESOURCE)) {
+				if (in == null)
+					return null;
+				
+				data = in.readAllBytes();
+			}
+			
+			FontPack.cached = new SoftReference<>(data);
+		}
+		
+		return ByteBuffer.wrap(data);
+	}
+	
+	private FontPack() {}
+}
@@ -1,11 +1,30 @@
 package me.fonts.src;
 
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
+import javax.imageio.ImageIO;
+
+import me.fonts.graphics.GlyphAtlas;
 import me.fonts.graphics.IScreen;
 import me.fonts.graphics.SpriteBase;
 import me.fonts.graphics.SpriteSheet;
@@ -16,39 +35,231 @@ import me.fonts.graphics.SpriteSheet;
  *
  */
 public final class Fonts {
+	/**
+	 * If the packed sprites of every Font are kept off the heap, set with <code>-Dme.fonts.offHeap=true</code>.
+	 */
+	private static final boolean OFF_HEAP = Boolean.getBoolean("me.fonts.offHeap");
+	/**
+	 * The directory of atlas files written with <code>writeAtlases</code> that the Fonts are memory-mapped from, set with <code>-Dme.fonts.atlases=directory</code>, or null to read them from the pack.
+	 */
+	private static final Path ATLASES = System.getProperty("me.fonts.atlases") != null ? Paths.get(System.getProperty("me.fonts.atlases")) : null;
 	/**
 	 * An array of all the fonts.
 	 */
-	private static Font[] FONTS;
+	private static final Font[] FONTS;
+	/**
+	 * The index in FONTS of every Font, by FontFamily and then by font size, or -1 where there is none.
+	 */
+	private static final EnumMap<FontFamily, int[]> INDEX;
+	/**
+	 * Counts up each time a Font is used, to find the least recently used Fonts.
+	 */
+	private static final AtomicLong CLOCK = new AtomicLong();
+	/**
+	 * The bytes the loaded Fonts hold, kept up to date as they are loaded and unloaded.
+	 */
+	private static final AtomicLong USED = new AtomicLong();
+	/**
+	 * The most bytes the loaded Fonts may hold before the least recently used are unloaded.
+	 */
+	private static volatile long budget = Long.MAX_VALUE;
 	
 	static {
+		Font[] fonts = null;
+		
 		try {
-			List<Font> fonts = new ArrayList<>();
+			fonts = FontPack.createFonts(OFF_HEAP);
+		} catch (IOException e) {
+			System.err.println("Failed to read " + FontPack.RESOURCE + "; reading the sprite sheets instead.");
+			e.printStackTrace();
+		}
+		
+		FONTS = fonts != null ? fonts : createSheetFonts(OFF_HEAP);
+		INDEX = createIndex(FONTS);
+	}
+	
+	private static final EnumMap<FontFamily, int[]> createIndex(Font[] fonts) {
+		EnumMap<FontFamily, int[]> output = new EnumMap<>(FontFamily.class);
+		
+		for (int i = 0; i < fonts.length; i++) {
+			FontFamily family = fonts[i].getFamily();
 			
-			Class<SpriteSheet> clazz = SpriteSheet.class;
+			if (family == null || fonts[i].getSize() < 0)
+				continue;
 			
-			Field[] fields = Arrays.stream(clazz.getFields()).toArray(Field[]::new);
+			int[] sizes = output.get(family);
 			
-			for (Field field : fields) {
-				if (!Modifier.isStatic(field.getModifiers()) || !Modifier.isFinal(field.getModifiers()))
-					continue;
+			if (sizes == null || sizes.length <= fonts[i].getSize()) {
+				int[] grown = new int[fonts[i].getSize() + 1];
+				
+				Arrays.fill(grown, -1);
 				
-				final SpriteSheet sheet = (SpriteSheet) field.get(null);
-				final String fontFamily = field.getName().split("_")[0];
-				final int fontSize = Integer.parseInt(field.getName().split("_")[1].replaceAll("PT", ""));
-				final int size = sheet.getWidth() / 26;
-				final SpriteBase[] sprites = SpriteBase.split(sheet, size, size);
+				if (sizes != null)
+					System.arraycopy(sizes, 0, grown, 0, sizes.length);
 				
-				fonts.add(new Font(sprites, fontFamily, fontSize));
+				output.put(family, sizes = grown);
 			}
 			
-			FONTS = fonts.stream().toArray(Font[]::new);
-		} catch (Exception e) {
-			e.printStackTrace();
-			System.exit(-1);
+			sizes[fonts[i].getSize()] = i;
+		}
+		
+		return output;
+	}
+	
+	/**
+	 * Creates a Font for every sprite sheet, without loading any of them.  Each Font decodes, splits, and trims its own sheet the first time it is used.  This is only needed when there is no FontPack, or to write one.
+	 * <br>Only the names of the SpriteSheet fields are read; the SpriteSheet class itself is never loaded, since it would decode every sheet at once.
+	 * @param direct If the packed sprites of each Font should be kept off the heap.
+	 * @return A Font for every sprite sheet.
+	 */
+	static final Font[] createSheetFonts(boolean direct) {
+		List<Font> fonts = new ArrayList<>();
+		
+		for (Field field : SpriteSheet.class.getFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) || !Modifier.isFinal(field.getModifiers()) || field.getType() != SpriteSheet.class)
+				continue;
+			
+			final String fontFamily = field.getName().split("_")[0];
+			final int fontSize = Integer.parseInt(field.getName().split("_")[1].replaceAll("PT", ""));
+			final String path = "/fonts/" + field.getName().toLowerCase() + ".png";
+			
+			fonts.add(new Font(fontFamily, fontSize, withAtlas(fontFamily, fontSize, () -> loadSheet(path, fontSize, direct))));
+		}
+		
+		return fonts.stream().toArray(Font[]::new);
+	}
+	
+	private static final FontData loadSheet(String path, int fontSize, boolean direct) {
+		try {
+			URL resource = Fonts.class.getResource(path);
+			
+			if (resource == null)
+				throw new FileNotFoundException(path);
+			
+			BufferedImage image = ImageIO.read(resource);
+			int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+			int size = image.getWidth() / 26;
+			
+			return Font.createData(SpriteBase.split(pixels, image.getWidth(), image.getHeight(), size, size), fontSize, direct);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Makes a Font's loader memory-map the Font's atlas file instead, when <code>-Dme.fonts.atlases</code> is set and the file exists.
+	 * <br>A mapped atlas is read straight from the page cache, so every JVM that maps the same file shares one copy of the glyphs rather than each holding its own.
+	 * @param name The font family (all-capitals).
+	 * @param size The font size.
+	 * @param loader Loads the sprites of the Font when there is no atlas file.
+	 * @return The loader to give the Font.
+	 */
+	static final Supplier<FontData> withAtlas(String name, int size, Supplier<FontData> loader) {
+		if (ATLASES == null)
+			return loader;
+		
+		Path file = ATLASES.resolve(getAtlasName(name, size));
+		
+		return () -> Files.isRegularFile(file) ? mapAtlas(file, size) : loader.get();
+	}
+	
+	private static final FontData mapAtlas(Path file, int size) {
+		try {
+			return Font.createData(GlyphAtlas.map(file), size);
+		} catch (IOException | IllegalArgumentException e) {
+			throw new UncheckedIOException(new IOException("Unable to map " + file + ".", e));
 		}
 	}
 	
+	private static final String getAtlasName(String name, int size) {
+		return name.toLowerCase() + "_" + size + "pt.atlas";
+	}
+	
+	/**
+	 * Writes the atlas of every Font into a directory, one file each, so they can be memory-mapped by starting the application with <code>-Dme.fonts.atlases=directory</code>.
+	 * <br>This loads every Font.
+	 * @param directory The directory to write to.  It is created if it does not exist.
+	 * @throws IOException If an atlas could not be written.
+	 */
+	public static final void writeAtlases(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		
+		for (Font font : FONTS)
+			try (FileChannel channel = FileChannel.open(directory.resolve(getAtlasName(font.getName(), font.getSize())), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				font.getAtlas().write(channel);
+			}
+	}
+	
+	/**
+	 * Gets the next time on the clock that orders when Fonts were used.
+	 * @return The next time on the clock.
+	 */
+	static final long tick() {
+		return CLOCK.incrementAndGet();
+	}
+	
+	/**
+	 * Counts bytes that a Font has just loaded or unloaded.
+	 * @param bytes The bytes loaded, or negative for the bytes unloaded.
+	 */
+	static final void addMemoryUsed(long bytes) {
+		USED.addAndGet(bytes);
+	}
+	
+	/**
+	 * Unloads the least recently used Fonts until the loaded Fonts fit in the memory budget.  While they fit, this only reads a counter; the Fonts are only searched, under a lock, once they go over.
+	 * @param keep The Font that was just loaded, which is never unloaded.
+	 */
+	static final void enforceBudget(Font keep) {
+		if (USED.get() <= budget)
+			return;
+		
+		synchronized (Fonts.class) {
+			while (USED.get() > budget) {
+				Font oldest = null;
+				
+				for (Font font : FONTS)
+					if (font != keep && font.isLoaded() && (oldest == null || font.getLastUsed() < oldest.getLastUsed()))
+						oldest = font;
+				
+				if (oldest == null)
+					return;
+				
+				oldest.unload();
+			}
+		}
+	}
+	
+	/**
+	 * Sets the most memory the loaded Fonts may hold.  When loading a Font goes over the budget, the least recently used Fonts are unloaded; they are kept softly reachable, and are loaded again the next time they are used.
+	 * <br>Fonts load their sprites the first time they are used, so only the sizes an application actually uses count towards the budget.
+	 * @param bytes The most bytes the loaded Fonts may hold, or <code>Long.MAX_VALUE</code> for no limit, which is the default.
+	 */
+	public static final void setMemoryBudget(long bytes) {
+		if (bytes < 0)
+			throw new IllegalArgumentException("The memory budget must not be negative.");
+		
+		budget = bytes;
+		
+		enforceBudget(null);
+	}
+	
+	/**
+	 * Gets the most memory the loaded Fonts may hold.
+	 * @return The most bytes the loaded Fonts may hold, or <code>Long.MAX_VALUE</code> if there is no limit.
+	 */
+	public static final long getMemoryBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Gets roughly how much memory the loaded Fonts hold.
+	 * @return The bytes the loaded Fonts hold.
+	 */
+	public static final long getMemoryUsed() {
+		return USED.get();
+	}
+	
 	/**
 	 * Get the font by the font family and the font size.
 	 * @param family The font family of the font to print.
@@ -56,13 +267,9 @@ public final class Fonts {
 	 * @return The font to print to the screen.
 	 */
 	public static final Font getFont(FontFamily family, int size) {
-		Font font = null;
-		
-		for (Font item : FONTS)
-			if (item.getName().equalsIgnoreCase(family.toString()) && item.getSize() == size)
-				font = item;
+		int index = indexOf(family, size);
 		
-		return font;
+		return index < 0 ? null : FONTS[index];
 	}
 	
 	/**
@@ -81,11 +288,9 @@ public final class Fonts {
 	 * @return The index of the Font in the FONTS array.  This will return -1 if one is not found.
 	 */
 	public static final int indexOf(FontFamily family, int size) {
-		for (int i = 0; i < FONTS.length; i++)
-			if (FONTS[i].getName().equalsIgnoreCase(family.toString()) && FONTS[i].getSize() == size)
-				return i;
+		int[] sizes = INDEX.get(family);
 		
-		return -1;
+		return sizes == null || size < 0 || size >= sizes.length ? -1 : sizes[size];
 	}
 	
 	/**
@@ -96,6 +301,31 @@ public final class Fonts {
 		return FONTS.length;
 	}
 	
+	/**
+	 * Loads every Font in the background, several at a time, so that none of them have to load the first time they are used.
+	 * <br>Fonts can be used while they are loading; a Font that is not loaded yet waits for its own sprites, and no others.
+	 * @return A future that completes once every Font is loaded, or, if any Font failed to load, completes exceptionally with the failure of one of them once the rest have finished.
+	 */
+	public static final CompletableFuture<Void> preloadAsync() {
+		return preloadAsync(ForkJoinPool.commonPool(), FONTS);
+	}
+	
+	/**
+	 * Loads Fonts in the background, several at a time, so that they do not have to load the first time they are used.
+	 * <br>If a memory budget is set, loading more than fits in it will unload the least recently used Fonts again.
+	 * @param executor The Executor to load the Fonts on.
+	 * @param fonts The Fonts to load.
+	 * @return A future that completes once every Font is loaded, or, if any Font failed to load, completes exceptionally with the failure of one of them once the rest have finished.
+	 */
+	public static final CompletableFuture<Void> preloadAsync(Executor executor, Font...fonts) {
+		CompletableFuture<?>[] futures = new CompletableFuture<?>[fonts.length];
+		
+		for (int i = 0; i < fonts.length; i++)
+			futures[i] = CompletableFuture.runAsync(fonts[i]::getData, executor);
+		
+		return CompletableFuture.allOf(futures);
+	}
+	
 	/**
 	 * Rather than individually setting the IScreen of each Font, using this will set the IScreens for all Fonts.
 	 * @param screen The screen to set each Font to render to.
@@ -105,5 +335,23 @@ public final class Fonts {
 			font.setScreen(screen);
 	}
 	
+	/**
+	 * Rather than individually setting each Font to be anti-aliased, using this will set it for all Fonts.
+	 * @param antialiased If every Font should be rendered anti-aliased when blitting to a RasterTarget.
+	 */
+	public static final void setAllAntialiased(boolean antialiased) {
+		for (Font font : FONTS)
+			font.setAntialiased(antialiased);
+	}
+	
+	/**
+	 * Rather than individually setting the TextCache of each Font, using this will set the TextCache for all Fonts.
+	 * @param cache The TextCache for every Font to share, or null to stop caching.
+	 */
+	public static final void setAllCaches(TextCache cache) {
+		for (Font font : FONTS)
+			font.setCache(cache);
+	}
+	
 	private Fonts() {}
 }
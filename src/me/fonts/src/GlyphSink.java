@@ -0,0 +1,17 @@
+package me.fonts.src;
+
+/**
+ * Receives each character as a Font lays out text, instead of the character being rendered to the screen.
+ * @author Joshua Diemer
+ *
+ */
+interface GlyphSink {
+	/**
+	 * Adds a character that has been laid out.
+	 * @param glyph The index of the character in CHARACTERS.
+	 * @param x The x position of the character.
+	 * @param y The y position of the character.
+	 * @param color The color of the character.
+	 */
+	void add(int glyph, int x, int y, int color);
+}
@@ -0,0 +1,331 @@
+package me.fonts.src;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * Renders text to PNG files without a screen, for generating many label images at once.
+ * <br>Each Job is measured, rendered into an image of exactly its size, and written as a PNG.  The Jobs are rendered on virtual threads when the JVM has them, and otherwise on a pool of platform threads.  No more than <code>parallelism</code> Jobs are ever in progress, and the stream of Jobs is only read as quickly as they finish, so the memory used does not grow with the amount of Jobs.  The pixel buffers are reused from Job to Job.
+ * @author Joshua Diemer
+ *
+ */
+public final class ImageBatch {
+	/**
+	 * The masks of the alpha, red, green, and blue channels in an ARGB pixel.
+	 */
+	private static final int[] MASKS = { 0xFF0000, 0xFF00, 0xFF, 0xFF000000 };
+	
+	/**
+	 * The most Jobs that may be in progress at once.
+	 */
+	private final int parallelism;
+	/**
+	 * The pixel buffers that are not in use by a Job.
+	 */
+	private final ConcurrentLinkedQueue<int[]> buffers;
+	
+	/**
+	 * Creates an ImageBatch that renders as many Jobs at once as there are processors.
+	 */
+	public ImageBatch() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates an ImageBatch that renders up to the amount of Jobs provided at once.
+	 * @param parallelism The most Jobs that may be in progress at once.
+	 */
+	public ImageBatch(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException("The parallelism must be at least 1.");
+		
+		this.parallelism = parallelism;
+		
+		buffers = new ConcurrentLinkedQueue<>();
+	}
+	
+	/**
+	 * Renders every Job in the stream and writes each to its PNG file, returning once they have all finished.
+	 * <br>If a Job fails, no more Jobs are started, and the failure is thrown once the Jobs in progress have finished.
+	 * @param jobs The Jobs to render.
+	 * @return The amount of images written.
+	 * @throws UncheckedIOException If an image could not be written.
+	 */
+	public int render(Stream<Job> jobs) {
+		Semaphore permits = new Semaphore(parallelism);
+		AtomicInteger written = new AtomicInteger();
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		ExecutorService executor = createExecutor(parallelism);
+		
+		try {
+			Iterator<Job> iterator = jobs.iterator();
+			
+			while (failure.get() == null && iterator.hasNext()) {
+				Job job = iterator.next();
+				
+				permits.acquireUninterruptibly();
+				
+				executor.execute(() -> {
+					try {
+						write(job);
+						written.incrementAndGet();
+					} catch (Throwable e) {
+						failure.compareAndSet(null, e);
+					} finally {
+						permits.release();
+					}
+				});
+			}
+		} finally {
+			permits.acquireUninterruptibly(parallelism);
+			executor.shutdown();
+		}
+		
+		Throwable e = failure.get();
+		
+		if (e instanceof RuntimeException)
+			throw (RuntimeException) e;
+		else if (e instanceof Error)
+			throw (Error) e;
+		
+		return written.get();
+	}
+	
+	/**
+	 * Gets the most Jobs that may be in progress at once.
+	 * @return The parallelism of the ImageBatch.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	private void write(Job job) {
+		PreparedText text = job.font.prepare(job.text, job.color, job.spacing, job.lineHeight, job.colors);
+		Rectangle bounds = new Rectangle(0, 0, text.getWidth(), text.getHeight());
+		Rectangle ink = text.getInkBounds(0, 0, job.antialiased);
+		
+		if (!ink.isEmpty())
+			bounds = bounds.union(ink);
+		
+		bounds.grow(job.padding, job.padding);
+		
+		int width = Math.max(bounds.width, 1);
+		int height = Math.max(bounds.height, 1);
+		int[] pixels = takeBuffer(width * height);
+		
+		try {
+			RasterTarget target = new RasterTarget(pixels, width, height);
+			
+			target.clear(job.background);
+			text.render(new RenderContext(target).withAntialiased(job.antialiased), -bounds.x, -bounds.y);
+			
+			WritableRaster raster = Raster.createPackedRaster(new DataBufferInt(pixels, width * height), width, height, width, MASKS, null);
+			BufferedImage image = new BufferedImage(ColorModel.getRGBdefault(), raster, false, null);
+			
+			ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+			
+			try (OutputStream out = Files.newOutputStream(job.output); ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+				writer.setOutput(stream);
+				writer.write(image);
+			} finally {
+				writer.dispose();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to write " + job.output + ".", e);
+		} finally {
+			buffers.offer(pixels);
+		}
+	}
+	
+	private int[] takeBuffer(int size) {
+		int[] buffer = buffers.poll();
+		
+		return buffer != null && buffer.length >= size ? buffer : new int[size];
+	}
+	
+	/**
+	 * Creates an executor that runs each Job on a new virtual thread, or, when virtual threads are not available, a pool of platform threads.
+	 * @param parallelism The amount of platform threads to use when virtual threads are not available.
+	 * @return The executor to render the Jobs on.
+	 */
+	private static ExecutorService createExecutor(int parallelism) {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(parallelism, runnable -> {
+				Thread thread = new Thread(runnable, "ImageBatch");
+				
+				thread.setDaemon(true);
+				
+				return thread;
+			});
+		}
+	}
+	
+	/**
+	 * A single image to render: the text, how it is rendered, and the file it is written to.
+	 * @author Joshua Diemer
+	 *
+	 */
+	public static final class Job {
+		/**
+		 * The Font to render the text with.
+		 */
+		private final Font font;
+		/**
+		 * The text to render.
+		 */
+		private final String text;
+		/**
+		 * The ordered list of colors to iterate through when using <code>\b</code>.
+		 */
+		private final int[] colors;
+		/**
+		 * The file to write the PNG to.
+		 */
+		private final Path output;
+		/**
+		 * The color of the text.
+		 */
+		private int color;
+		/**
+		 * The spacing between each letter.
+		 */
+		private double spacing;
+		/**
+		 * The height between lines when using <code>\n</code>.
+		 */
+		private double lineHeight;
+		/**
+		 * The color of the image behind the text.
+		 */
+		private int background;
+		/**
+		 * The empty pixels added on every side of the text.
+		 */
+		private int padding;
+		/**
+		 * If the text is rendered anti-aliased.
+		 */
+		private boolean antialiased;
+		
+		/**
+		 * Creates a Job that renders the text provided in black, with the Font's default spacing and lineHeight, onto a transparent image.
+		 * @param font The Font to render the text with.
+		 * @param text The text to render, following the same rules as <code>Font.render</code>.
+		 * @param output The file to write the PNG to.
+		 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+		 */
+		public Job(Font font, String text, Path output, int...colors) {
+			this.font = font;
+			this.text = text;
+			this.output = output;
+			this.colors = colors;
+			
+			color = 0xFF000000;
+			spacing = font.getSize() / 16 + 1;
+			lineHeight = (int) (font.getSize() / 2.5);
+		}
+		
+		/**
+		 * Creates a Job that renders the format provided, with the Font's default spacing and lineHeight, onto a transparent image.
+		 * @param font The Font to render the format with.
+		 * @param format The format to form the text and colors.
+		 * @param output The file to write the PNG to.
+		 */
+		public Job(Font font, FontFormat format, Path output) {
+			this(font, format.getText(), output, format.getColors());
+			
+			color = 0;
+		}
+		
+		/**
+		 * Sets the color of the text.
+		 * @param color The color of the text.
+		 * @return Itself for compounding.
+		 */
+		public Job setColor(int color) {
+			this.color = color;
+			
+			return this;
+		}
+		
+		/**
+		 * Sets the spacing between each letter and the height between lines.
+		 * @param spacing The spacing between each letter (default is 1).
+		 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+		 * @return Itself for compounding.
+		 */
+		public Job setSpacing(double spacing, double lineHeight) {
+			this.spacing = spacing;
+			this.lineHeight = lineHeight;
+			
+			return this;
+		}
+		
+		/**
+		 * Sets the color of the image behind the text.
+		 * @param background The color of the background (default is transparent).
+		 * @return Itself for compounding.
+		 */
+		public Job setBackground(int background) {
+			this.background = background;
+			
+			return this;
+		}
+		
+		/**
+		 * Sets the empty pixels added on every side of the text.
+		 * @param padding The padding of the image (default is 0).
+		 * @return Itself for compounding.
+		 */
+		public Job setPadding(int padding) {
+			this.padding = padding;
+			
+			return this;
+		}
+		
+		/**
+		 * Sets whether the text is rendered anti-aliased.
+		 * @param antialiased If the text should be rendered anti-aliased.
+		 * @return Itself for compounding.
+		 */
+		public Job setAntialiased(boolean antialiased) {
+			this.antialiased = antialiased;
+			
+			return this;
+		}
+		
+		/**
+		 * Gets the file the PNG is written to.
+		 * @return The output file.
+		 */
+		public Path getOutput() {
+			return output;
+		}
+	}
+}
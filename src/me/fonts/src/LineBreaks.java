@@ -0,0 +1,208 @@
+package me.fonts.src;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wraps text to a width for a single Font, remembering how far each character of recently wrapped text moves the next one, and where it was broken for the last few widths.
+ * <br>Wrapping the same text to the same width again is a lookup, and wrapping it to a new width, such as when a window is resized, only walks through the remembered advances rather than measuring the characters again.
+ * @author Joshua Diemer
+ *
+ */
+final class LineBreaks {
+	/**
+	 * The most texts that are remembered.
+	 */
+	private static final int CAPACITY = 256;
+	/**
+	 * The most widths that are remembered for each text.
+	 */
+	private static final int WIDTHS = 4;
+	
+	/**
+	 * The Font the text is wrapped for.
+	 */
+	private final Font font;
+	/**
+	 * The remembered texts, from least to most recently wrapped.
+	 */
+	private final LinkedHashMap<String, Measured> texts;
+	
+	/**
+	 * Creates an empty LineBreaks.
+	 * @param font The Font the text is wrapped for.
+	 */
+	LineBreaks(Font font) {
+		this.font = font;
+		
+		texts = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			
+			protected boolean removeEldestEntry(Map.Entry<String, Measured> eldest) {
+				return size() > CAPACITY;
+			}
+		};
+	}
+	
+	/**
+	 * Wraps the text to the width provided, replacing the spaces it is broken at with <code>\n</code>.
+	 * @param text The text to wrap.
+	 * @param maxWidth The most width each line may have.
+	 * @param spacing The spacing between each letter.
+	 * @return The wrapped text.
+	 */
+	String wrap(String text, int maxWidth, double spacing) {
+		Measured measured;
+		
+		synchronized (this) {
+			measured = texts.get(text);
+			
+			if (measured != null && measured.spacing == spacing) {
+				String wrapped = measured.find(maxWidth);
+				
+				if (wrapped != null)
+					return wrapped;
+			} else
+				measured = null;
+		}
+		
+		if (measured == null)
+			measured = new Measured(spacing, font.measureAdvances(text, spacing));
+		
+		String wrapped = wrap(text, measured.advances, maxWidth);
+		
+		synchronized (this) {
+			measured.add(maxWidth, wrapped);
+			texts.put(text, measured);
+		}
+		
+		return wrapped;
+	}
+	
+	/**
+	 * Clears every remembered text.
+	 */
+	synchronized void clear() {
+		texts.clear();
+	}
+	
+	/**
+	 * Breaks the text greedily: each word goes on the current line if it fits, and otherwise starts a new one.  The spaces a line is broken at are dropped, and a word too wide for a line of its own is broken between its characters.
+	 * @param text The text to wrap.
+	 * @param advances How far each character of the text moves the next one.
+	 * @param maxWidth The most width each line may have.
+	 * @return The wrapped text.
+	 */
+	private static String wrap(String text, double[] advances, int maxWidth) {
+		StringBuilder output = new StringBuilder(text.length() + 16);
+		double x = 0;
+		boolean lineUsed = false;
+		int spaceStart = 0;
+		double spaceWidth = 0;
+		int i = 0;
+		
+		while (i < text.length()) {
+			char c = text.charAt(i);
+			
+			if (c == '\n') {
+				output.append(text, spaceStart, i + 1);
+				x = spaceWidth = 0;
+				lineUsed = false;
+				spaceStart = ++i;
+				continue;
+			}
+			
+			if (Font.isSpace(c)) {
+				spaceWidth += advances[i++];
+				continue;
+			}
+			
+			int wordEnd = i;
+			double wordWidth = 0;
+			
+			while (wordEnd < text.length() && text.charAt(wordEnd) != '\n' && !Font.isSpace(text.charAt(wordEnd)))
+				wordWidth += advances[wordEnd++];
+			
+			if (lineUsed && (int) (x + spaceWidth + wordWidth) > maxWidth) {
+				output.append('\n');
+				x = 0;
+				lineUsed = false;
+			} else {
+				output.append(text, spaceStart, i);
+				x += spaceWidth;
+			}
+			
+			for (; i < wordEnd; i++) {
+				if (lineUsed && advances[i] > 0 && (int) (x + advances[i]) > maxWidth) {
+					output.append('\n');
+					x = 0;
+					lineUsed = false;
+				}
+				
+				output.append(text.charAt(i));
+				x += advances[i];
+				lineUsed |= advances[i] > 0;
+			}
+			
+			spaceStart = i;
+			spaceWidth = 0;
+		}
+		
+		output.append(text, spaceStart, text.length());
+		
+		return output.toString();
+	}
+	
+	/**
+	 * The advances of a single text, and the text wrapped to the last few widths.
+	 * @author Joshua Diemer
+	 *
+	 */
+	private static final class Measured {
+		/**
+		 * The spacing between each letter that the advances include.
+		 */
+		private final double spacing;
+		/**
+		 * How far each character of the text moves the next one.
+		 */
+		private final double[] advances;
+		/**
+		 * The widths the text has been wrapped to.
+		 */
+		private final int[] widths;
+		/**
+		 * The text wrapped to each of the widths, or null where there is none yet.
+		 */
+		private final String[] wrapped;
+		/**
+		 * The next slot to replace in <code>widths</code> and <code>wrapped</code>.
+		 */
+		private int next;
+		
+		private Measured(double spacing, double[] advances) {
+			this.spacing = spacing;
+			this.advances = advances;
+			
+			widths = new int[WIDTHS];
+			wrapped = new String[WIDTHS];
+		}
+		
+		private String find(int maxWidth) {
+			for (int i = 0; i < WIDTHS; i++)
+				if (wrapped[i] != null && widths[i] == maxWidth)
+					return wrapped[i];
+			
+			return null;
+		}
+		
+		private void add(int maxWidth, String text) {
+			if (find(maxWidth) != null)
+				return;
+			
+			widths[next] = maxWidth;
+			wrapped[next] = text;
+			next = (next + 1) % WIDTHS;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package me.fonts.src;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import me.fonts.graphics.GlyphAtlas;
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * Text that has already been laid out by a Font.  The characters, positions and colors are worked out once, so rendering it again only has to draw each character.
+ * <br>Create one with <code>Font.prepare</code>.
+ * @author Joshua Diemer
+ *
+ */
+public final class PreparedText {
+	/**
+	 * The Font that laid out the text.
+	 */
+	private final Font font;
+	/**
+	 * The index in CHARACTERS of every character to render.
+	 */
+	private int[] glyphs;
+	/**
+	 * The x position of every character, relative to where the text is rendered.
+	 */
+	private int[] xs;
+	/**
+	 * The y position of every character, relative to where the text is rendered.
+	 */
+	private int[] ys;
+	/**
+	 * The color of every character.
+	 */
+	private int[] colors;
+	/**
+	 * The amount of characters to render.
+	 */
+	private int count;
+	/**
+	 * The full width of the text.
+	 */
+	private int width;
+	/**
+	 * The full height of the text.
+	 */
+	private int height;
+	/**
+	 * The smallest rectangle, relative to where the text is rendered, that holds every character's sprite.
+	 */
+	private int inkX, inkY, inkRight, inkBottom;
+	
+	/**
+	 * Creates an empty PreparedText; the Font fills it in while laying out the text.
+	 * @param font The Font laying out the text.
+	 * @param capacity The most characters that will be added.
+	 */
+	PreparedText(Font font, int capacity) {
+		this.font = font;
+		
+		glyphs = new int[capacity];
+		xs = new int[capacity];
+		ys = new int[capacity];
+		colors = new int[capacity];
+	}
+	
+	/**
+	 * Adds a character that has been laid out.
+	 * @param glyph The index of the character in CHARACTERS.
+	 * @param x The x position of the character.
+	 * @param y The y position of the character.
+	 * @param color The color of the character.
+	 */
+	void add(int glyph, int x, int y, int color) {
+		glyphs[count] = glyph;
+		xs[count] = x;
+		ys[count] = y;
+		colors[count] = color;
+		count++;
+	}
+	
+	/**
+	 * Finishes laying out the text, trimming the arrays down to the characters that were added.
+	 * @param size The width of the text in the upper 32 bits, and the height of the text in the lower 32 bits.
+	 */
+	void finish(long size) {
+		width = (int) (size >>> 32);
+		height = (int) size;
+		
+		glyphs = Arrays.copyOf(glyphs, count);
+		xs = Arrays.copyOf(xs, count);
+		ys = Arrays.copyOf(ys, count);
+		colors = Arrays.copyOf(colors, count);
+		
+		if (count == 0)
+			return;
+		
+		inkX = inkY = Integer.MAX_VALUE;
+		inkRight = inkBottom = Integer.MIN_VALUE;
+		
+		GlyphAtlas atlas = font.getData().getAtlas();
+		
+		for (int i = 0; i < count; i++) {
+			inkX = Math.min(inkX, xs[i]);
+			inkY = Math.min(inkY, ys[i]);
+			inkRight = Math.max(inkRight, xs[i] + atlas.getWidth(glyphs[i]));
+			inkBottom = Math.max(inkBottom, ys[i] + atlas.getHeight(glyphs[i]));
+		}
+	}
+	
+	/**
+	 * Render the text to the Font's screen, located at the x and y provided.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public FontOutput render(int x, int y) {
+		return render(font.currentContext(), new FontOutput(), x, y);
+	}
+	
+	/**
+	 * Render the text to the Font's screen, located at the x and y provided, storing where the text was rendered in the FontOutput provided rather than creating a new one.
+	 * @param output The FontOutput to store the locations of the text in.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return The FontOutput provided.
+	 */
+	public FontOutput render(FontOutput output, int x, int y) {
+		return render(font.currentContext(), output, x, y);
+	}
+	
+	/**
+	 * Render the text to the screen of the RenderContext provided, located at the x and y provided, regardless of the Font's screen.
+	 * @param context The screen and options to render with.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public FontOutput render(RenderContext context, int x, int y) {
+		return render(context, new FontOutput(), x, y);
+	}
+	
+	/**
+	 * Render the text to the screen of the RenderContext provided, located at the x and y provided, storing where the text was rendered in the FontOutput provided.
+	 * @param context The screen and options to render with.
+	 * @param output The FontOutput to store the locations of the text in.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return The FontOutput provided.
+	 */
+	public FontOutput render(RenderContext context, FontOutput output, int x, int y) {
+		FontData data = font.use();
+		
+		for (int i = 0; i < count; i++)
+			if (!font.renderGlyph(context, data, glyphs[i], x + xs[i], y + ys[i], colors[i]))
+				break;
+		
+		return output.set(font, x, y, width, height);
+	}
+	
+	/**
+	 * Render the text straight into a RasterTarget, located at the x and y provided, regardless of the Font's screen.
+	 * @param target The RasterTarget to render to.
+	 * @param x The x position to render on the RasterTarget.
+	 * @param y The y position to render on the RasterTarget.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size.
+	 */
+	public FontOutput render(RasterTarget target, int x, int y) {
+		boolean antialiased = font.isAntialiased();
+		
+		FontData data = font.use();
+		
+		for (int i = 0; i < count; i++)
+			font.renderGlyph(target, data, antialiased, glyphs[i], x + xs[i], y + ys[i], colors[i]);
+		
+		return new FontOutput().set(font, x, y, width, height);
+	}
+	
+	/**
+	 * Gets the area that the text will draw over when rendered at the x and y provided.  Unlike the width and height, this includes characters that reach above or below their line, and the extra pixel on each side when the Font is anti-aliased.
+	 * @param x The x position the text is rendered at.
+	 * @param y The y position the text is rendered at.
+	 * @return The area that the text will draw over.
+	 */
+	public Rectangle getInkBounds(int x, int y) {
+		return getInkBounds(x, y, font.isAntialiased());
+	}
+	
+	/**
+	 * Gets the area that the text will draw over when rendered at the x and y provided, anti-aliased or not regardless of the Font.  This is for text rendered with a RenderContext whose anti-aliasing differs from the Font's.
+	 * @param x The x position the text is rendered at.
+	 * @param y The y position the text is rendered at.
+	 * @param antialiased Whether the text is rendered anti-aliased, adding the extra pixel on each side.
+	 * @return The area that the text will draw over.
+	 */
+	public Rectangle getInkBounds(int x, int y, boolean antialiased) {
+		Rectangle output = new Rectangle(x + inkX, y + inkY, inkRight - inkX, inkBottom - inkY);
+		
+		if (count > 0 && antialiased)
+			output.grow(1, 1);
+		
+		return output;
+	}
+	
+	/**
+	 * Gets the Font that laid out the text.
+	 * @return The Font that laid out the text.
+	 */
+	public Font getFont() {
+		return font;
+	}
+	
+	/**
+	 * Gets the full width of the text.
+	 * @return The full width of the text.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	
+	/**
+	 * Gets the full height of the text.
+	 * @return The full height of the text.
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
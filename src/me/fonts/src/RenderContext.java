@@ -0,0 +1,208 @@
+package me.fonts.src;
+
+import me.fonts.graphics.IScreen;
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * An immutable description of where and how text is rendered: the screen, the area of it that may be rendered to, and whether text is anti-aliased or cached.
+ * <br>Every Font has its own RenderContext, changed with <code>setScreen</code>, <code>setClip</code>, and the like.  A RenderContext can also be given to <code>Font.render</code> directly, or bound to the current thread with <code>bind</code>, so that several threads can share the same Fonts while each renders to its own screen.
+ * <br>Since a RenderContext never changes, changing one creates a new RenderContext.
+ * @author Joshua Diemer
+ *
+ */
+public final class RenderContext {
+	/**
+	 * A RenderContext without a screen, which is what every Font starts with.
+	 */
+	public static final RenderContext EMPTY = new RenderContext(null);
+	
+	/**
+	 * The RenderContext bound to each thread, or null where there is none.
+	 */
+	private static final ThreadLocal<RenderContext> BOUND = new ThreadLocal<>();
+	
+	/**
+	 * The screen to render to, or null if there is none.
+	 */
+	private final IScreen screen;
+	/**
+	 * The screen when it is a RasterTarget, which is blitted to directly; otherwise null.
+	 */
+	private final RasterTarget raster;
+	/**
+	 * The area of the screen that text may be rendered to.  When the screen is a RasterTarget, its own clip is applied as well.
+	 */
+	private final int clipX, clipY, clipRight, clipBottom;
+	/**
+	 * If single-color sprites are rendered anti-aliased when blitting to a RasterTarget.
+	 */
+	private final boolean antialiased;
+	/**
+	 * The cache of pre-rendered text, or null to always render character by character.
+	 */
+	private final TextCache cache;
+	
+	/**
+	 * Creates a RenderContext that renders to the entire screen provided, without anti-aliasing or caching.
+	 * @param screen The screen to render to.
+	 */
+	public RenderContext(IScreen screen) {
+		this(screen, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, false, null);
+	}
+	
+	private RenderContext(IScreen screen, int clipX, int clipY, int clipRight, int clipBottom, boolean antialiased, TextCache cache) {
+		this.screen = screen;
+		this.raster = screen instanceof RasterTarget ? (RasterTarget) screen : null;
+		this.clipX = clipX;
+		this.clipY = clipY;
+		this.clipRight = clipRight;
+		this.clipBottom = clipBottom;
+		this.antialiased = antialiased;
+		this.cache = cache;
+	}
+	
+	/**
+	 * Binds a RenderContext to the current thread.  Until it is unbound, every Font rendered on this thread without a RenderContext of its own uses it rather than the Font's.
+	 * @param context The RenderContext to bind, or null to unbind the current one.
+	 */
+	public static void bind(RenderContext context) {
+		if (context == null)
+			BOUND.remove();
+		else
+			BOUND.set(context);
+	}
+	
+	/**
+	 * Unbinds the RenderContext of the current thread, so that Fonts use their own again.
+	 */
+	public static void unbind() {
+		BOUND.remove();
+	}
+	
+	/**
+	 * Gets the RenderContext bound to the current thread.
+	 * @return The bound RenderContext, or null if there is none.
+	 */
+	public static RenderContext getBound() {
+		return BOUND.get();
+	}
+	
+	/**
+	 * Creates a copy of the RenderContext that renders to another screen.
+	 * @param screen The screen to render to.
+	 * @return The new RenderContext.
+	 */
+	public RenderContext withScreen(IScreen screen) {
+		return new RenderContext(screen, clipX, clipY, clipRight, clipBottom, antialiased, cache);
+	}
+	
+	/**
+	 * Creates a copy of the RenderContext that only renders to a rectangle of the screen.  Lines and characters entirely outside of the rectangle are skipped without being sent to the screen.  Characters crossing the edge of the rectangle are sent to the screen whole.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @return The new RenderContext.
+	 */
+	public RenderContext withClip(int x, int y, int width, int height) {
+		return new RenderContext(screen, x, y, x + width, y + height, antialiased, cache);
+	}
+	
+	/**
+	 * Creates a copy of the RenderContext that renders to the entire screen.
+	 * @return The new RenderContext.
+	 */
+	public RenderContext withoutClip() {
+		return new RenderContext(screen, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, antialiased, cache);
+	}
+	
+	/**
+	 * Creates a copy of the RenderContext that does, or does not, render anti-aliased.
+	 * @param antialiased If text should be rendered anti-aliased when blitting to a RasterTarget.
+	 * @return The new RenderContext.
+	 */
+	public RenderContext withAntialiased(boolean antialiased) {
+		return new RenderContext(screen, clipX, clipY, clipRight, clipBottom, antialiased, cache);
+	}
+	
+	/**
+	 * Creates a copy of the RenderContext that keeps rendered text in another cache.
+	 * @param cache The TextCache to use, or null to stop caching.
+	 * @return The new RenderContext.
+	 */
+	public RenderContext withCache(TextCache cache) {
+		return new RenderContext(screen, clipX, clipY, clipRight, clipBottom, antialiased, cache);
+	}
+	
+	/**
+	 * Gets the screen to render to.
+	 * @return The screen, or null if there is none.
+	 */
+	public IScreen getScreen() {
+		return screen;
+	}
+	
+	/**
+	 * Gets the screen when it is a RasterTarget.
+	 * @return The RasterTarget, or null if the screen is not one.
+	 */
+	RasterTarget getRaster() {
+		return raster;
+	}
+	
+	/**
+	 * Checks if rendering is restricted to a rectangle of the screen.
+	 * @return If the RenderContext has a clip.
+	 */
+	public boolean isClipped() {
+		return clipX != Integer.MIN_VALUE || clipY != Integer.MIN_VALUE || clipRight != Integer.MAX_VALUE || clipBottom != Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Gets the left edge of the area that may be rendered to.
+	 * @return The left edge of the clip.
+	 */
+	public int getClipX() {
+		return clipX;
+	}
+	
+	/**
+	 * Gets the top edge of the area that may be rendered to.
+	 * @return The top edge of the clip.
+	 */
+	public int getClipY() {
+		return clipY;
+	}
+	
+	/**
+	 * Gets the right edge of the area that may be rendered to.
+	 * @return The right edge of the clip.
+	 */
+	public int getClipRight() {
+		return clipRight;
+	}
+	
+	/**
+	 * Gets the bottom edge of the area that may be rendered to.
+	 * @return The bottom edge of the clip.
+	 */
+	public int getClipBottom() {
+		return clipBottom;
+	}
+	
+	/**
+	 * Checks if text is rendered anti-aliased when blitting to a RasterTarget.
+	 * @return If text is rendered anti-aliased.
+	 */
+	public boolean isAntialiased() {
+		return antialiased;
+	}
+	
+	/**
+	 * Gets the cache that rendered text is kept in.
+	 * @return The TextCache in use, or null if there is none.
+	 */
+	public TextCache getCache() {
+		return cache;
+	}
+}
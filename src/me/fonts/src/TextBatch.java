@@ -0,0 +1,407 @@
+package me.fonts.src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * Collects text to render during a frame and renders it all at once.  The text is laid out as it is added, and when flushed the characters are rendered grouped by Font and then by color, so each Font's glyphs are used together rather than scattered across the frame.
+ * <br>Characters of the same Font and color are rendered in the order they were added.  Overlapping text of different Fonts or colors may be layered differently than if it had been rendered immediately.
+ * @author Joshua Diemer
+ *
+ */
+public final class TextBatch {
+	/**
+	 * The fewest rows a band is given when flushing with several threads.
+	 */
+	private static final int MIN_BAND_HEIGHT = 32;
+	/**
+	 * The fewest characters worth splitting across several threads.
+	 */
+	private static final int MIN_PARALLEL_GLYPHS = 256;
+	
+	/**
+	 * The Font of each group of characters.
+	 */
+	private final List<Font> groupFonts;
+	/**
+	 * The color of each group of characters.
+	 */
+	private int[] groupColors;
+	/**
+	 * The group, index in CHARACTERS, x position and y position of every character that has been added.
+	 */
+	private int[] groups, glyphs, xs, ys;
+	/**
+	 * The sort key of each group, reused from flush to flush.
+	 */
+	private long[] groupKeys;
+	/**
+	 * The amount of characters that have been added.
+	 */
+	private int count;
+	/**
+	 * The Font of the text currently being added.
+	 */
+	private Font font;
+	/**
+	 * The last group a character was added to, which is usually the group of the next character too.
+	 */
+	private int lastGroup;
+	/**
+	 * Adds each character to the batch as a Font lays out the text.
+	 */
+	private final GlyphSink sink;
+	
+	/**
+	 * Creates an empty TextBatch.
+	 */
+	public TextBatch() {
+		groupFonts = new ArrayList<>();
+		groupColors = new int[16];
+		groupKeys = new long[16];
+		groups = new int[256];
+		glyphs = new int[256];
+		xs = new int[256];
+		ys = new int[256];
+		lastGroup = -1;
+		sink = this::addGlyph;
+	}
+	
+	/**
+	 * Adds the format provided to the batch, located at the x and y provided.
+	 * @param font The Font to render the text with.
+	 * @param format The format to form the text and colors.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size, as it will be rendered.
+	 */
+	public FontOutput add(Font font, FontFormat format, int x, int y) {
+		return add(font, format.getText(), x, y, 0, font.getSize() / 16 + 1, (int) (font.getSize() / 2.5), format.getColors());
+	}
+	
+	/**
+	 * Adds the text provided to the batch, located at the x and y provided.
+	 * <br>The text follows the same rules as <code>Font.render</code>.
+	 * @param font The Font to render the text with.
+	 * @param text The text to render.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size, as it will be rendered.
+	 */
+	public FontOutput add(Font font, String text, int x, int y, int...colors) {
+		return add(font, text, x, y, 0, font.getSize() / 16 + 1, (int) (font.getSize() / 2.5), colors);
+	}
+	
+	/**
+	 * Adds the text provided to the batch, located at the x and y provided, with the hex color, spacing and lineHeight provided.
+	 * <br>The text follows the same rules as <code>Font.render</code>.
+	 * @param font The Font to render the text with.
+	 * @param text The text to render.
+	 * @param x The x position to render on the screen.
+	 * @param y The y position to render on the screen.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter (default is 1).
+	 * @param lineHeight The height between lines when using <code>\n</code> (default is 1).
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return A FontOutput to find the locations of the text, the font family, and the font size, as it will be rendered.
+	 */
+	public FontOutput add(Font font, String text, int x, int y, int color, double spacing, double lineHeight, int...colors) {
+		this.font = font;
+		
+		long size = font.layout(text, x, y, color, spacing, lineHeight, colors, sink);
+		
+		return new FontOutput().set(font, x, y, (int) (size >>> 32), (int) size);
+	}
+	
+	/**
+	 * Renders every character in the batch to the screen of its Font, or of the RenderContext bound to the current thread, then empties the batch.
+	 * <br>If a Font has no screen, its characters are skipped, and it is reported once; the characters of every other Font are still rendered.
+	 */
+	public void flush() {
+		int[] order = sort();
+		FontData[] data = useFonts();
+		RenderContext[] contexts = new RenderContext[groupFonts.size()];
+		
+		boolean[] skipped = new boolean[groupFonts.size()];
+		
+		for (int i = 0; i < contexts.length; i++)
+			contexts[i] = groupFonts.get(i).currentContext();
+		
+		for (int i : order) {
+			int group = groups[i];
+			
+			if (skipped[group] || groupFonts.get(group).renderGlyph(contexts[group], data[group], glyphs[i], xs[i], ys[i], groupColors[group]))
+				continue;
+			
+			for (int j = 0; j < skipped.length; j++)
+				skipped[j] |= groupFonts.get(j) == groupFonts.get(group);
+		}
+		
+		clear();
+	}
+	
+	/**
+	 * Renders every character in the batch straight into a RasterTarget, regardless of the screen of each Font, then empties the batch.
+	 * @param target The RasterTarget to render to.
+	 */
+	public void flush(RasterTarget target) {
+		int[] order = sort();
+		FontData[] data = useFonts();
+		
+		for (int i : order)
+			groupFonts.get(groups[i]).renderGlyph(target, data[groups[i]], groupFonts.get(groups[i]).isAntialiased(), glyphs[i], xs[i], ys[i], groupColors[groups[i]]);
+		
+		clear();
+	}
+	
+	/**
+	 * Renders every character in the batch straight into a RasterTarget using several threads, then empties the batch.
+	 * <br>The RasterTarget is split into horizontal bands, each character is placed in every band it overlaps, and each band is rendered by one worker of the pool, clipped to that band.  No two workers write the same pixels, and the result is identical to <code>flush(target)</code>.
+	 * @param target The RasterTarget to render to.
+	 * @param pool The pool to render the bands on.
+	 */
+	public void flush(RasterTarget target, ForkJoinPool pool) {
+		int clipY = target.getClipY();
+		int clipBottom = target.getClipBottom();
+		int bandCount = Math.min(pool.getParallelism() * 4, (clipBottom - clipY + MIN_BAND_HEIGHT - 1) / MIN_BAND_HEIGHT);
+		
+		if (bandCount <= 1 || count < MIN_PARALLEL_GLYPHS) {
+			flush(target);
+			return;
+		}
+		
+		int bandHeight = (clipBottom - clipY + bandCount - 1) / bandCount;
+		int[] order = sort();
+		FontData[] data = useFonts();
+		int[] bandStarts = new int[bandCount + 1];
+		
+		for (int i : order)
+			for (int band = firstBand(i, clipY, bandHeight); band <= lastBand(i, data, clipY, bandHeight, bandCount); band++)
+				bandStarts[band + 1]++;
+		
+		for (int band = 0; band < bandCount; band++)
+			bandStarts[band + 1] += bandStarts[band];
+		
+		int[] bandGlyphs = new int[bandStarts[bandCount]];
+		int[] offsets = Arrays.copyOf(bandStarts, bandCount);
+		
+		for (int i : order)
+			for (int band = firstBand(i, clipY, bandHeight); band <= lastBand(i, data, clipY, bandHeight, bandCount); band++)
+				bandGlyphs[offsets[band]++] = i;
+		
+		pool.invoke(new BandTask(target, data, bandStarts, bandGlyphs, 0, bandCount, bandHeight));
+		
+		clear();
+	}
+	
+	/**
+	 * Empties the batch without rendering anything.
+	 */
+	public void clear() {
+		groupFonts.clear();
+		count = 0;
+		lastGroup = -1;
+	}
+	
+	/**
+	 * Gets the amount of characters waiting to be rendered.
+	 * @return The amount of characters in the batch.
+	 */
+	public int size() {
+		return count;
+	}
+	
+	private int firstBand(int glyph, int clipY, int bandHeight) {
+		return Math.max(ys[glyph] - getHalo(glyph) - clipY, 0) / bandHeight;
+	}
+	
+	private int lastBand(int glyph, FontData[] data, int clipY, int bandHeight, int bandCount) {
+		int bottom = ys[glyph] + data[groups[glyph]].getAtlas().getHeight(glyphs[glyph]) - 1 + getHalo(glyph);
+		
+		if (bottom < clipY)
+			return -1;
+		
+		return Math.min((bottom - clipY) / bandHeight, bandCount - 1);
+	}
+	
+	/**
+	 * Gets how far a character reaches past its sprite on every side: one pixel when its Font is anti-aliased, since the edges are blended into the pixels beside them, and otherwise none.
+	 * @param glyph The index of the character in the batch.
+	 * @return The extra rows above and below the character.
+	 */
+	private int getHalo(int glyph) {
+		return groupFonts.get(groups[glyph]).isAntialiased() ? 1 : 0;
+	}
+	
+	/**
+	 * Marks the Font of every group as just used, and gets its loaded sprites, so they are only looked up once per flush rather than once per character.
+	 * @return The loaded sprites of each group's Font.
+	 */
+	private FontData[] useFonts() {
+		FontData[] data = new FontData[groupFonts.size()];
+		
+		for (int i = 0; i < data.length; i++)
+			data[i] = groupFonts.get(i).use();
+		
+		return data;
+	}
+	
+	/**
+	 * Gets the sort key of a group: the index of the first group with the same Font, above its color.
+	 * @param group The index of the group.
+	 * @return The sort key of the group.
+	 */
+	private long getKey(int group) {
+		return (long) groupFonts.indexOf(groupFonts.get(group)) << 32 | groupColors[group] & 0xFFFFFFFFL;
+	}
+	
+	private void addGlyph(int glyph, int x, int y, int color) {
+		int group = lastGroup;
+		
+		if (group == -1 || groupFonts.get(group) != font || groupColors[group] != color)
+			group = lastGroup = findGroup(color);
+		
+		if (count == glyphs.length) {
+			groups = Arrays.copyOf(groups, count << 1);
+			glyphs = Arrays.copyOf(glyphs, count << 1);
+			xs = Arrays.copyOf(xs, count << 1);
+			ys = Arrays.copyOf(ys, count << 1);
+		}
+		
+		groups[count] = group;
+		glyphs[count] = glyph;
+		xs[count] = x;
+		ys[count] = y;
+		count++;
+	}
+	
+	private int findGroup(int color) {
+		for (int i = 0; i < groupFonts.size(); i++)
+			if (groupFonts.get(i) == font && groupColors[i] == color)
+				return i;
+		
+		if (groupFonts.size() == groupColors.length)
+			groupColors = Arrays.copyOf(groupColors, groupColors.length << 1);
+		
+		groupColors[groupFonts.size()] = color;
+		groupFonts.add(font);
+		
+		return groupFonts.size() - 1;
+	}
+	
+	/**
+	 * Orders the characters by Font and then by color, keeping characters of the same group in the order they were added.
+	 * <br>Fonts are ordered by when they were first added.  Each group is sorted by a single long, the index of its Font above its color, so nothing is boxed.
+	 * @return The indices of the characters in the order they should be rendered.
+	 */
+	private int[] sort() {
+		int groupCount = groupFonts.size();
+		
+		if (groupKeys.length < groupCount)
+			groupKeys = new long[groupColors.length];
+		
+		for (int i = 0; i < groupCount; i++)
+			groupKeys[i] = getKey(i);
+		
+		Arrays.sort(groupKeys, 0, groupCount);
+		
+		int[] sizes = new int[groupCount];
+		
+		for (int i = 0; i < count; i++)
+			sizes[groups[i]]++;
+		
+		int[] ranks = new int[groupCount];
+		
+		for (int i = 0; i < groupCount; i++)
+			ranks[i] = Arrays.binarySearch(groupKeys, 0, groupCount, getKey(i));
+		
+		int[] offsets = new int[groupCount + 1];
+		
+		for (int i = 0; i < groupCount; i++)
+			offsets[ranks[i] + 1] = sizes[i];
+		
+		for (int i = 0; i < groupCount; i++)
+			offsets[i + 1] += offsets[i];
+		
+		int[] order = new int[count];
+		
+		for (int i = 0; i < count; i++)
+			order[offsets[ranks[groups[i]]]++] = i;
+		
+		return order;
+	}
+	
+	/**
+	 * Renders a range of bands, splitting the range in half until each task has a single band.
+	 * @author Joshua Diemer
+	 *
+	 */
+	private final class BandTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * The RasterTarget being rendered to.
+		 */
+		private final RasterTarget target;
+		/**
+		 * The loaded sprites of each group's Font.
+		 */
+		private final FontData[] data;
+		/**
+		 * Where each band's characters start in bandGlyphs.
+		 */
+		private final int[] bandStarts;
+		/**
+		 * The characters of every band, in the order they are rendered.
+		 */
+		private final int[] bandGlyphs;
+		/**
+		 * The first band to render.
+		 */
+		private final int from;
+		/**
+		 * The band after the last band to render.
+		 */
+		private final int to;
+		/**
+		 * The amount of rows in each band.
+		 */
+		private final int bandHeight;
+		
+		private BandTask(RasterTarget target, FontData[] data, int[] bandStarts, int[] bandGlyphs, int from, int to, int bandHeight) {
+			this.target = target;
+			this.data = data;
+			this.bandStarts = bandStarts;
+			this.bandGlyphs = bandGlyphs;
+			this.from = from;
+			this.to = to;
+			this.bandHeight = bandHeight;
+		}
+		
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new BandTask(target, data, bandStarts, bandGlyphs, from, middle, bandHeight), new BandTask(target, data, bandStarts, bandGlyphs, middle, to, bandHeight));
+				return;
+			}
+			
+			RasterTarget band = new RasterTarget(target.getPixels(), target.getWidth(), target.getHeight(), target.getStride());
+			int top = target.getClipY() + from * bandHeight;
+			
+			band.setClip(target.getClipX(), top, target.getClipRight() - target.getClipX(), Math.min(bandHeight, target.getClipBottom() - top));
+			
+			for (int j = bandStarts[from]; j < bandStarts[to]; j++) {
+				int i = bandGlyphs[j];
+				
+				groupFonts.get(groups[i]).renderGlyph(band, data[groups[i]], groupFonts.get(groups[i]).isAntialiased(), glyphs[i], xs[i], ys[i], groupColors[groups[i]]);
+			}
+		}
+	}
+}
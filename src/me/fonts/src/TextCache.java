@@ -0,0 +1,298 @@
+package me.fonts.src;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import me.fonts.graphics.SpriteBase;
+
+/**
+ * A bounded cache of text that has already been rendered.  Give it to a Font with <code>setCache</code>, and text the Font renders often is drawn as a single pre-rendered sprite rather than character by character.
+ * <br>Text is only cached the second time it is missed, so text that is rendered once never pushes anything out.  When the sprites use more than the budget, the least recently rendered are evicted first.
+ * @author Joshua Diemer
+ *
+ */
+public final class TextCache {
+	/**
+	 * The amount of recently missed text that is remembered for admission.  This must be a power of two.
+	 */
+	private static final int DOORKEEPER_SIZE = 1024;
+	/**
+	 * The bytes counted for every entry on top of its pixels.
+	 */
+	private static final int ENTRY_OVERHEAD = 128;
+	
+	/**
+	 * The most bytes the cached sprites may use.
+	 */
+	private final long budget;
+	/**
+	 * The cached text, from least to most recently rendered.
+	 */
+	private final LinkedHashMap<Key, Entry> entries;
+	/**
+	 * The hashes of text that has been missed once, indexed by the low bits of the hash.
+	 */
+	private final int[] doorkeeper;
+	/**
+	 * The hashes of text that was too large to fit in the budget, indexed like the doorkeeper, so it is not rendered into a sprite again.
+	 */
+	private final int[] oversized;
+	/**
+	 * The Key reused to look up text without allocating.
+	 */
+	private final Key probe;
+	/**
+	 * The bytes the cached sprites currently use.
+	 */
+	private long bytes;
+	/**
+	 * The counters for text that was found, text that was not found, and text that was evicted.
+	 */
+	private long hits, misses, evictions;
+	
+	/**
+	 * Creates an empty TextCache.
+	 * @param budget The most bytes the cached sprites may use.
+	 */
+	public TextCache(long budget) {
+		if (budget < 0)
+			throw new IllegalArgumentException("The budget must not be negative.");
+		
+		this.budget = budget;
+		
+		entries = new LinkedHashMap<>(16, 0.75f, true);
+		doorkeeper = new int[DOORKEEPER_SIZE];
+		oversized = new int[DOORKEEPER_SIZE];
+		probe = new Key();
+	}
+	
+	/**
+	 * Finds the pre-rendered text, creating it if it has been missed before.
+	 * <br>The text is rendered into its sprite outside of the lock, so other threads using the cache are not held up by it.  Text whose sprite would not fit in the whole budget is remembered, and is never rendered into a sprite again.
+	 * @param font The Font rendering the text.
+	 * @param text The text being rendered.
+	 * @param color The color of the text.
+	 * @param spacing The spacing between each letter.
+	 * @param lineHeight The height between lines when using <code>\n</code>.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The pre-rendered text, or null if the text must be rendered character by character.
+	 */
+	Entry get(Font font, String text, int color, double spacing, double lineHeight, int[] colors) {
+		Key key;
+		
+		synchronized (this) {
+			probe.set(font, text, color, spacing, lineHeight, colors);
+			
+			Entry entry = entries.get(probe);
+			
+			if (entry != null) {
+				hits++;
+				return entry;
+			}
+			
+			misses++;
+			
+			int slot = probe.hash & DOORKEEPER_SIZE - 1;
+			
+			if (oversized[slot] == probe.hash)
+				return null;
+			else if (doorkeeper[slot] != probe.hash) {
+				doorkeeper[slot] = probe.hash;
+				return null;
+			}
+			
+			doorkeeper[slot] = 0;
+			key = probe.copy();
+		}
+		
+		Entry entry = font.createEntry(text, color, spacing, lineHeight, colors);
+		
+		synchronized (this) {
+			if (entry.bytes > budget) {
+				oversized[key.hash & DOORKEEPER_SIZE - 1] = key.hash;
+				return entry;
+			}
+			
+			return add(key, entry);
+		}
+	}
+	
+	/**
+	 * Adds text that has just been rendered into a sprite, unless another thread already added it, then evicts the least recently rendered text until the cache fits in the budget.
+	 * @param key The Key of the text.
+	 * @param entry The pre-rendered text.
+	 * @return The pre-rendered text in the cache.
+	 */
+	private Entry add(Key key, Entry entry) {
+		Entry existing = entries.get(key);
+		
+		if (existing != null)
+			return existing;
+		
+		entries.put(key, entry);
+		bytes += entry.bytes;
+		
+		Iterator<Entry> eldest = entries.values().iterator();
+		
+		while (bytes > budget) {
+			bytes -= eldest.next().bytes;
+			eldest.remove();
+			evictions++;
+		}
+		
+		return entry;
+	}
+	
+	/**
+	 * Removes all of the cached text.  The counters are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		Arrays.fill(doorkeeper, 0);
+		Arrays.fill(oversized, 0);
+		bytes = 0;
+	}
+	
+	/**
+	 * Gets the amount of text that is cached.
+	 * @return The amount of text that is cached.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Gets the bytes the cached sprites currently use.
+	 * @return The bytes the cached sprites currently use.
+	 */
+	public synchronized long getBytes() {
+		return bytes;
+	}
+	
+	/**
+	 * Gets the most bytes the cached sprites may use.
+	 * @return The most bytes the cached sprites may use.
+	 */
+	public long getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Gets the amount of times text was found in the cache.
+	 * @return The amount of hits.
+	 */
+	public synchronized long getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Gets the amount of times text was not found in the cache, including text that was then added.
+	 * @return The amount of misses.
+	 */
+	public synchronized long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Gets the amount of text that has been pushed out of the cache to stay within the budget.
+	 * @return The amount of evictions.
+	 */
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+	
+	public String toString() {
+		return "TextCache[size=" + size() + ", bytes=" + getBytes() + "/" + budget + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+	}
+	
+	/**
+	 * Text that has been rendered once into a sprite.
+	 * @author Joshua Diemer
+	 *
+	 */
+	static final class Entry {
+		/**
+		 * The pre-rendered text, or null if nothing is drawn.
+		 */
+		final SpriteBase sprite;
+		/**
+		 * The position of the sprite relative to where the text is rendered.
+		 */
+		final int x, y;
+		/**
+		 * The full width and height of the text.
+		 */
+		final int width, height;
+		/**
+		 * The bytes counted against the budget.
+		 */
+		final long bytes;
+		
+		/**
+		 * Creates an Entry.  This is handled through the Font.
+		 * @param sprite The pre-rendered text, or null if nothing is drawn.
+		 * @param x The x position of the sprite relative to where the text is rendered.
+		 * @param y The y position of the sprite relative to where the text is rendered.
+		 * @param width The full width of the text.
+		 * @param height The full height of the text.
+		 */
+		Entry(SpriteBase sprite, int x, int y, int width, int height) {
+			this.sprite = sprite;
+			this.x = x;
+			this.y = y;
+			this.width = width;
+			this.height = height;
+			this.bytes = ENTRY_OVERHEAD + (sprite == null ? 0 : (long) sprite.getWidth() * sprite.getHeight() * Integer.BYTES);
+		}
+	}
+	
+	private static final class Key {
+		private Font font;
+		private String text;
+		private int color;
+		private double spacing, lineHeight;
+		private int[] colors;
+		private int hash;
+		
+		private void set(Font font, String text, int color, double spacing, double lineHeight, int[] colors) {
+			this.font = font;
+			this.text = text;
+			this.color = color;
+			this.spacing = spacing;
+			this.lineHeight = lineHeight;
+			this.colors = colors;
+			
+			int hash = System.identityHashCode(font);
+			
+			hash = 31 * hash + text.hashCode();
+			hash = 31 * hash + color;
+			hash = 31 * hash + Double.hashCode(spacing);
+			hash = 31 * hash + Double.hashCode(lineHeight);
+			hash = 31 * hash + Arrays.hashCode(colors);
+			
+			this.hash = hash == 0 ? 1 : hash;
+		}
+		
+		private Key copy() {
+			Key output = new Key();
+			
+			output.set(font, text, color, spacing, lineHeight, colors == null ? null : colors.clone());
+			
+			return output;
+		}
+		
+		public int hashCode() {
+			return hash;
+		}
+		
+		public boolean equals(Object object) {
+			if (!(object instanceof Key))
+				return false;
+			
+			Key key = (Key) object;
+			
+			return hash == key.hash && font == key.font && color == key.color && Double.compare(spacing, key.spacing) == 0 && Double.compare(lineHeight, key.lineHeight) == 0 && text.equals(key.text) && Arrays.equals(colors, key.colors);
+		}
+	}
+}
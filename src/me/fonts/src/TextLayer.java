@@ -0,0 +1,316 @@
+package me.fonts.src;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * A retained layer of text on top of a RasterTarget.  Rather than clearing and rendering every label each frame, add the labels to the layer once and change them as needed; <code>update</code> will only redraw the areas that changed.
+ * <br>The areas that were redrawn are returned from <code>update</code>, so they can be presented on their own.
+ * @author Joshua Diemer
+ *
+ */
+public final class TextLayer {
+	/**
+	 * The RasterTarget the layer renders to.
+	 */
+	private final RasterTarget target;
+	/**
+	 * The color drawn behind the text when an area is redrawn.
+	 */
+	private final int background;
+	/**
+	 * The text in the layer, in the order it is rendered.
+	 */
+	private final List<Node> nodes;
+	/**
+	 * The areas that must be redrawn on the next update.
+	 */
+	private final List<Rectangle> damage;
+	
+	/**
+	 * Creates an empty TextLayer.
+	 * @param target The RasterTarget to render to.
+	 * @param background The color drawn behind the text when an area is redrawn.
+	 */
+	public TextLayer(RasterTarget target, int background) {
+		this.target = target;
+		this.background = background;
+		
+		nodes = new ArrayList<>();
+		damage = new ArrayList<>();
+	}
+	
+	/**
+	 * Adds text to the top of the layer.  It will be drawn on the next update.
+	 * @param font The Font to render the text with.
+	 * @param text The text to render, following the same rules as <code>Font.render</code>.
+	 * @param x The x position to render on the RasterTarget.
+	 * @param y The y position to render on the RasterTarget.
+	 * @param color The color of the text.
+	 * @param colors The ordered list of colors to iterate through when using <code>\b</code>.
+	 * @return The Node, which can be used to change or remove the text.
+	 */
+	public Node add(Font font, String text, int x, int y, int color, int...colors) {
+		Node node = new Node(font, text, x, y, color, colors);
+		
+		nodes.add(node);
+		
+		return node;
+	}
+	
+	/**
+	 * Removes text from the layer.  The area it covered will be redrawn on the next update.
+	 * @param node The Node to remove.
+	 */
+	public void remove(Node node) {
+		if (nodes.remove(node) && node.text != null)
+			addDamage(node.bounds);
+	}
+	
+	/**
+	 * Marks the entire RasterTarget to be redrawn on the next update.
+	 */
+	public void invalidate() {
+		addDamage(new Rectangle(0, 0, target.getWidth(), target.getHeight()));
+	}
+	
+	/**
+	 * Redraws every area of the RasterTarget that has changed since the last update.  Each area is cleared to the background color, and every Node that overlaps it is rendered again, in order, without drawing outside of the area.
+	 * @return The areas that were redrawn, none of which overlap.
+	 */
+	public List<Rectangle> update() {
+		for (Node node : nodes) {
+			if (!node.dirty)
+				continue;
+			
+			if (node.text != null)
+				addDamage(node.bounds);
+			
+			node.prepare();
+			addDamage(node.bounds);
+		}
+		
+		if (damage.isEmpty())
+			return Collections.emptyList();
+		
+		List<Rectangle> output = merge(damage);
+		
+		damage.clear();
+		
+		int clipX = target.getClipX();
+		int clipY = target.getClipY();
+		int clipRight = target.getClipRight();
+		int clipBottom = target.getClipBottom();
+		
+		for (Rectangle area : output) {
+			target.setClip(area.x, area.y, area.width, area.height);
+			target.fill(area.x, area.y, area.width, area.height, background);
+			
+			for (Node node : nodes)
+				if (node.bounds.intersects(area))
+					node.text.render(target, node.x, node.y);
+		}
+		
+		target.setClip(clipX, clipY, clipRight - clipX, clipBottom - clipY);
+		
+		return output;
+	}
+	
+	/**
+	 * Gets the text in the layer, in the order it is rendered.
+	 * @return An unmodifiable view of the Nodes in the layer.
+	 */
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+	
+	private void addDamage(Rectangle area) {
+		Rectangle clipped = area.intersection(new Rectangle(0, 0, target.getWidth(), target.getHeight()));
+		
+		if (!clipped.isEmpty())
+			damage.add(clipped);
+	}
+	
+	private static List<Rectangle> merge(List<Rectangle> areas) {
+		List<Rectangle> output = new ArrayList<>(areas);
+		boolean merged;
+		
+		do {
+			merged = false;
+			
+			for (int i = 0; i < output.size(); i++) {
+				for (int j = i + 1; j < output.size(); j++) {
+					if (output.get(i).intersects(output.get(j))) {
+						output.set(i, output.get(i).union(output.remove(j--)));
+						merged = true;
+					}
+				}
+			}
+		} while (merged);
+		
+		return output;
+	}
+	
+	/**
+	 * A single piece of text in a TextLayer.  Changing it marks it to be redrawn on the next update.
+	 * @author Joshua Diemer
+	 *
+	 */
+	public static final class Node {
+		/**
+		 * The Font the text is rendered with.
+		 */
+		private Font font;
+		/**
+		 * The text that is rendered.
+		 */
+		private String source;
+		/**
+		 * The x position of the text.
+		 */
+		private int x;
+		/**
+		 * The y position of the text.
+		 */
+		private int y;
+		/**
+		 * The color of the text.
+		 */
+		private int color;
+		/**
+		 * The ordered list of colors to iterate through when using <code>\b</code>.
+		 */
+		private int[] colors;
+		/**
+		 * The text as it was last laid out, or null if it has not been laid out yet.
+		 */
+		private PreparedText text;
+		/**
+		 * The area the text covered when it was last laid out.
+		 */
+		private Rectangle bounds;
+		/**
+		 * If the Node has changed since it was last laid out.
+		 */
+		private boolean dirty;
+		
+		private Node(Font font, String source, int x, int y, int color, int[] colors) {
+			this.font = font;
+			this.source = source;
+			this.x = x;
+			this.y = y;
+			this.color = color;
+			this.colors = colors;
+			
+			dirty = true;
+		}
+		
+		private void prepare() {
+			text = font.prepare(source, color, font.getSize() / 16 + 1, (int) (font.getSize() / 2.5), colors);
+			bounds = text.getInkBounds(x, y);
+			dirty = false;
+		}
+		
+		/**
+		 * Changes the Font the text is rendered with.
+		 * @param font The new Font.
+		 * @return Itself for compound actions.
+		 */
+		public Node setFont(Font font) {
+			if (this.font != font) {
+				this.font = font;
+				dirty = true;
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Changes the text that is rendered.
+		 * @param text The new text.
+		 * @return Itself for compound actions.
+		 */
+		public Node setText(String text) {
+			if (!source.equals(text)) {
+				source = text;
+				dirty = true;
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Moves the text.
+		 * @param x The new x position on the RasterTarget.
+		 * @param y The new y position on the RasterTarget.
+		 * @return Itself for compound actions.
+		 */
+		public Node setPosition(int x, int y) {
+			if (this.x != x || this.y != y) {
+				this.x = x;
+				this.y = y;
+				dirty = true;
+			}
+			
+			return this;
+		}
+		
+		/**
+		 * Changes the color of the text.
+		 * @param color The new color of the text.
+		 * @param colors The new ordered list of colors to iterate through when using <code>\b</code>.
+		 * @return Itself for compound actions.
+		 */
+		public Node setColor(int color, int...colors) {
+			this.color = color;
+			this.colors = colors;
+			dirty = true;
+			
+			return this;
+		}
+		
+		/**
+		 * Gets the Font the text is rendered with.
+		 * @return The Font the text is rendered with.
+		 */
+		public Font getFont() {
+			return font;
+		}
+		
+		/**
+		 * Gets the text that is rendered.
+		 * @return The text that is rendered.
+		 */
+		public String getText() {
+			return source;
+		}
+		
+		/**
+		 * Gets the x position of the text.
+		 * @return The x position of the text.
+		 */
+		public int getX() {
+			return x;
+		}
+		
+		/**
+		 * Gets the y position of the text.
+		 * @return The y position of the text.
+		 */
+		public int getY() {
+			return y;
+		}
+		
+		/**
+		 * Gets the color of the text.
+		 * @return The color of the text.
+		 */
+		public int getColor() {
+			return color;
+		}
+	}
+}
@@ -0,0 +1,433 @@
+package me.fonts.src;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import me.fonts.graphics.RasterTarget;
+
+/**
+ * A scrolling view of a text file of any size, rendering only the lines that are visible.
+ * <br>The file is memory-mapped rather than read, and a background thread indexes where its lines start.  Only every <code>CHECKPOINT</code>th line is kept in the index, so the index stays small, and finding any line takes at most <code>CHECKPOINT</code> lines of scanning, no matter how far into the file it is.  Lines that have not been indexed yet can still be shown; they are found by scanning on from the last line indexed.
+ * <br>Each byte is shown as the character with the same value, so ASCII files, and the ASCII in UTF-8 files, are shown as they are.  A <code>\r</code> at the end of a line is ignored, and <code>\b</code> is shown as a space rather than changing the color.
+ * @author Joshua Diemer
+ *
+ */
+public final class TextViewer implements Closeable {
+	/**
+	 * The amount of lines between each line kept in the index.
+	 */
+	private static final int CHECKPOINT = 256;
+	/**
+	 * The bits of a position in the file that select its place within a mapped chunk.
+	 */
+	private static final int CHUNK_BITS = 30;
+	/**
+	 * The mask of the position within a mapped chunk.
+	 */
+	private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+	
+	/**
+	 * The file, mapped in chunks of <code>1 << CHUNK_BITS</code> bytes, since a single mapping cannot exceed 2 GB.
+	 */
+	private final MappedByteBuffer[] chunks;
+	/**
+	 * The size of the file in bytes.
+	 */
+	private final long length;
+	/**
+	 * The Font the lines are rendered with.
+	 */
+	private final Font font;
+	/**
+	 * The thread indexing the lines.
+	 */
+	private final Thread indexer;
+	/**
+	 * Where every <code>CHECKPOINT</code>th line starts in the file.
+	 */
+	private volatile long[] checkpoints;
+	/**
+	 * The amount of entries in <code>checkpoints</code> that have been filled in.
+	 */
+	private volatile int checkpointCount;
+	/**
+	 * The amount of lines that have been indexed so far.
+	 */
+	private volatile long indexedLines;
+	/**
+	 * The first byte that has not been indexed yet.
+	 */
+	private volatile long indexedBytes;
+	/**
+	 * If the viewer has been closed, which stops the indexing.
+	 */
+	private volatile boolean closed;
+	/**
+	 * The first visible line.
+	 */
+	private long firstLine;
+	/**
+	 * The color of the text.
+	 */
+	private int color;
+	/**
+	 * The characters of the line being rendered, reused from line to line.
+	 */
+	private char[] line;
+	/**
+	 * The amount of characters in <code>line</code> that belong to the line being rendered.
+	 */
+	private int lineLength;
+	/**
+	 * The line being rendered, read straight from <code>line</code> so that no String is created for it.
+	 */
+	private final CharSequence lineText;
+	
+	private TextViewer(MappedByteBuffer[] chunks, long length, Font font) {
+		this.chunks = chunks;
+		this.length = length;
+		this.font = font;
+		
+		checkpoints = new long[64];
+		checkpointCount = 1;
+		line = new char[256];
+		lineText = new LineText();
+		color = 0xFF000000;
+		
+		indexer = new Thread(this::index, "TextViewer index");
+		indexer.setDaemon(true);
+		indexer.start();
+	}
+	
+	/**
+	 * Maps the file provided and starts indexing its lines in the background.
+	 * @param path The file to view.
+	 * @param font The Font to render the lines with.
+	 * @return The TextViewer of the file, scrolled to the first line.
+	 * @throws IOException If the file could not be mapped.
+	 */
+	public static TextViewer open(Path path, Font font) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long length = channel.size();
+			MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_BITS)];
+			
+			for (int i = 0; i < chunks.length; i++) {
+				long start = (long) i << CHUNK_BITS;
+				
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(length - start, 1L << CHUNK_BITS));
+			}
+			
+			return new TextViewer(chunks, length, font);
+		}
+	}
+	
+	/**
+	 * Renders the lines that fit in the rectangle provided, starting at the first visible line, to the Font's screen.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @return The amount of lines rendered.
+	 */
+	public int render(int x, int y, int width, int height) {
+		return render(font.currentContext(), x, y, width, height);
+	}
+	
+	/**
+	 * Renders the lines that fit in the rectangle provided, starting at the first visible line, to the screen of the RenderContext provided.
+	 * <br>When the screen is a RasterTarget, nothing is rendered outside of the rectangle; its clip is narrowed to the rectangle while rendering, and restored afterwards.  Other screens cannot be clipped, so characters crossing the edge of the rectangle, and the last line when it is only partly visible, are sent to them whole.
+	 * <br>Only the visible lines are read from the file, and only as many characters of each as can fit in the width.  They are read into a buffer that is reused from frame to frame, so rendering does not allocate a String for each line.
+	 * <br>If the RenderContext already has a clip, only the part of the rectangle inside of it is rendered to.
+	 * @param context The screen and options to render with.
+	 * @param x The left edge of the rectangle.
+	 * @param y The top edge of the rectangle.
+	 * @param width The width of the rectangle.
+	 * @param height The height of the rectangle.
+	 * @return The amount of lines rendered.
+	 */
+	public int render(RenderContext context, int x, int y, int width, int height) {
+		int left = Math.max(x, context.getClipX());
+		int top = Math.max(y, context.getClipY());
+		RenderContext clipped = context.withClip(left, top, Math.min(x + width, context.getClipRight()) - left, Math.min(y + height, context.getClipBottom()) - top);
+		int size = font.getSize();
+		int spacing = size / 16 + 1;
+		int lineHeight = (int) (size / 2.5);
+		int visible = (height + size + lineHeight - 1) / (size + lineHeight);
+		long position = findLine(firstLine);
+		int rendered = 0;
+		
+		RasterTarget raster = context.getRaster();
+		int clipX = 0, clipY = 0, clipRight = 0, clipBottom = 0;
+		
+		if (raster != null) {
+			clipX = raster.getClipX();
+			clipY = raster.getClipY();
+			clipRight = raster.getClipRight();
+			clipBottom = raster.getClipBottom();
+			
+			int rasterLeft = Math.max(left, clipX);
+			int rasterTop = Math.max(top, clipY);
+			
+			raster.setClip(rasterLeft, rasterTop, Math.min(clipped.getClipRight(), clipRight) - rasterLeft, Math.min(clipped.getClipBottom(), clipBottom) - rasterTop);
+		}
+		
+		try {
+			while (rendered < visible && position >= 0) {
+				lineLength = readLine(position, Math.max(width, 0) + 1);
+				
+				if (lineLength > 0)
+					font.layout(clipped, lineText, x, y + rendered * (size + lineHeight), color, spacing, lineHeight, null, null);
+				
+				position = nextLine(position);
+				rendered++;
+			}
+		} finally {
+			if (raster != null)
+				raster.setClip(clipX, clipY, clipRight - clipX, clipBottom - clipY);
+		}
+		
+		return rendered;
+	}
+	
+	/**
+	 * Reads a single line of the file.
+	 * @param index The index of the line, starting at 0.
+	 * @return The line, without its line break, or null if the file does not have that many lines.
+	 */
+	public String getLine(long index) {
+		long position = findLine(index);
+		
+		if (position < 0)
+			return null;
+		
+		long end = position;
+		
+		while (end < length && get(end) != '\n')
+			end++;
+		
+		return new String(line, 0, readLine(position, (int) Math.min(end - position, Integer.MAX_VALUE - 8)));
+	}
+	
+	/**
+	 * Scrolls so that the line provided is the first visible line.
+	 * @param index The index of the line, starting at 0.
+	 * @return Itself for compounding.
+	 */
+	public TextViewer scrollTo(long index) {
+		firstLine = Math.max(index, 0);
+		
+		if (isIndexed())
+			firstLine = Math.min(firstLine, Math.max(indexedLines - 1, 0));
+		
+		return this;
+	}
+	
+	/**
+	 * Scrolls by the amount of lines provided.
+	 * @param lines The amount of lines to scroll down, or up if negative.
+	 * @return Itself for compounding.
+	 */
+	public TextViewer scrollBy(long lines) {
+		return scrollTo(firstLine + lines);
+	}
+	
+	/**
+	 * Sets the color of the text.
+	 * @param color The color of the text.
+	 * @return Itself for compounding.
+	 */
+	public TextViewer setColor(int color) {
+		this.color = color;
+		
+		return this;
+	}
+	
+	/**
+	 * Gets the first visible line.
+	 * @return The index of the first visible line.
+	 */
+	public long getFirstLine() {
+		return firstLine;
+	}
+	
+	/**
+	 * Gets the amount of lines indexed so far.  Once <code>isIndexed</code> is true, this is the amount of lines in the file.
+	 * @return The amount of lines indexed.
+	 */
+	public long getLineCount() {
+		return indexedLines;
+	}
+	
+	/**
+	 * Checks if every line in the file has been indexed.
+	 * @return If the index is complete.
+	 */
+	public boolean isIndexed() {
+		return indexedBytes == length;
+	}
+	
+	/**
+	 * Waits for every line in the file to be indexed.
+	 * @throws InterruptedException If the current thread is interrupted while waiting.
+	 */
+	public void awaitIndexed() throws InterruptedException {
+		indexer.join();
+	}
+	
+	/**
+	 * Gets the size of the file.
+	 * @return The size of the file in bytes.
+	 */
+	public long getLength() {
+		return length;
+	}
+	
+	/**
+	 * Gets the Font the lines are rendered with.
+	 * @return The Font of the TextViewer.
+	 */
+	public Font getFont() {
+		return font;
+	}
+	
+	/**
+	 * Stops indexing the file.  The file stays mapped until the TextViewer is garbage collected.
+	 */
+	public void close() {
+		closed = true;
+	}
+	
+	private void index() {
+		long lines = length > 0 ? 1 : 0;
+		
+		for (int chunk = 0; chunk < chunks.length && !closed; chunk++) {
+			MappedByteBuffer buffer = chunks[chunk];
+			long start = (long) chunk << CHUNK_BITS;
+			
+			for (int i = 0; i < buffer.limit(); i++) {
+				if (buffer.get(i) == '\n' && start + i + 1 < length) {
+					if (lines % CHECKPOINT == 0)
+						addCheckpoint(start + i + 1);
+					
+					lines++;
+				}
+				
+				if ((i & 0xFFFFF) == 0xFFFFF) {
+					indexedLines = lines;
+					indexedBytes = start + i + 1;
+					
+					if (closed)
+						return;
+				}
+			}
+		}
+		
+		if (closed)
+			return;
+		
+		indexedLines = lines;
+		indexedBytes = length;
+	}
+	
+	private void addCheckpoint(long position) {
+		long[] checkpoints = this.checkpoints;
+		int count = checkpointCount;
+		
+		if (count == checkpoints.length)
+			this.checkpoints = checkpoints = Arrays.copyOf(checkpoints, count << 1);
+		
+		checkpoints[count] = position;
+		checkpointCount = count + 1;
+	}
+	
+	/**
+	 * Finds where a line starts, starting from the closest line in the index before it.
+	 * @param index The index of the line.
+	 * @return The position of the start of the line, or -1 if the file does not have that many lines.
+	 */
+	private long findLine(long index) {
+		if (index < 0 || length == 0)
+			return -1;
+		
+		int count = checkpointCount;
+		long[] checkpoints = this.checkpoints;
+		int checkpoint = (int) Math.min(index / CHECKPOINT, count - 1);
+		long position = checkpoints[checkpoint];
+		
+		for (long i = (long) checkpoint * CHECKPOINT; i < index && position >= 0; i++)
+			position = nextLine(position);
+		
+		return position;
+	}
+	
+	/**
+	 * Finds where the line after the line starting at the position provided starts.
+	 * @param position The start of a line.
+	 * @return The position of the start of the next line, or -1 if it is the last line.
+	 */
+	private long nextLine(long position) {
+		while (position < length && get(position) != '\n')
+			position++;
+		
+		return position + 1 < length ? position + 1 : -1;
+	}
+	
+	/**
+	 * Copies a line into <code>line</code>, stopping at the end of the line or after the amount of characters provided.
+	 * @param position The start of the line.
+	 * @param limit The most characters to copy.
+	 * @return The amount of characters copied.
+	 */
+	private int readLine(long position, int limit) {
+		int count = 0;
+		
+		for (long i = position; i < length && count < limit; i++) {
+			char c = (char) (get(i) & 0xFF);
+			
+			if (c == '\n')
+				break;
+			
+			if (count == line.length)
+				line = Arrays.copyOf(line, Math.min(count << 1, Math.max(limit, count + 1)));
+			
+			line[count++] = c == '\b' ? ' ' : c;
+		}
+		
+		if (count > 0 && line[count - 1] == '\r')
+			count--;
+		
+		return count;
+	}
+	
+	private byte get(long position) {
+		return chunks[(int) (position >>> CHUNK_BITS)].get((int) (position & CHUNK_MASK));
+	}
+	
+	/**
+	 * The line being rendered, as the first <code>lineLength</code> characters of <code>line</code>.
+	 * @author Joshua Diemer
+	 *
+	 */
+	private final class LineText implements CharSequence {
+		public int length() {
+			return lineLength;
+		}
+		
+		public char charAt(int index) {
+			return line[index];
+		}
+		
+		public CharSequence subSequence(int start, int end) {
+			return new String(line, start, end - start);
+		}
+		
+		public String toString() {
+			return new String(line, 0, lineLength);
+		}
+	}
+}